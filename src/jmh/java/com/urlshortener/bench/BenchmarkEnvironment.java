@@ -0,0 +1,101 @@
+package com.urlshortener.bench;
+
+import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.shortcode.Base62;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Отдельный каталог с файлами хранилища для каждого прогона. Конфигурация пишется во внешний
+// файл, путь к которому задается через config.file до первого обращения к AppConfig
+final class BenchmarkEnvironment {
+    private static final Path ROOT;
+    private static final Path CONFIG_FILE;
+
+    static {
+        try {
+            ROOT = Files.createTempDirectory("url-shortener-bench");
+            CONFIG_FILE = ROOT.resolve("application.properties");
+            System.setProperty("config.file", CONFIG_FILE.toString());
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Path directory;
+
+    private BenchmarkEnvironment(Path directory) {
+        this.directory = directory;
+    }
+
+    static BenchmarkEnvironment create(Map<String, String> overrides) {
+        try {
+            Path directory = Files.createTempDirectory(ROOT, "run");
+
+            Properties properties = new Properties();
+            properties.setProperty("storage.file", directory.resolve("links.txt").toString());
+            properties.setProperty("storage.journal.file", directory.resolve("links.log").toString());
+            properties.setProperty("storage.binary.file", directory.resolve("links.bin").toString());
+            properties.setProperty("storage.click.journal.file", directory.resolve("clicks.log").toString());
+            properties.setProperty("shortcode.counter.file", directory.resolve("counter.dat").toString());
+            properties.setProperty("link.default.max.clicks", String.valueOf(Integer.MAX_VALUE));
+            properties.setProperty("persistence.durability", "async");
+            properties.setProperty("ratelimit.enabled", "false");
+            properties.putAll(overrides);
+
+            try (Writer writer = Files.newBufferedWriter(CONFIG_FILE, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            AppConfig.getInstance().reload();
+            return new BenchmarkEnvironment(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Path file(String name) {
+        return directory.resolve(name);
+    }
+
+    void delete() {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Ссылка с кодом из 8 символов base62 и URL длиной около 45 символов.
+    // Каждая ссылка принадлежит одному из owners владельцев по кругу
+    static ShortLink syntheticLink(int index, UUID[] owners, LocalDateTime expiresAt) {
+        LocalDateTime createdAt = expiresAt.minusHours(24);
+        return new ShortLink(
+                Base62.encode(index * 7919L + 12345, 8),
+                "https://example.com/articles/" + index + "?ref=bench",
+                owners[index % owners.length],
+                createdAt,
+                expiresAt,
+                Integer.MAX_VALUE,
+                0,
+                true);
+    }
+
+    static UUID[] owners(int count) {
+        UUID[] owners = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            owners[i] = new UUID(0x5EED, i);
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,79 @@
+package com.urlshortener.bench;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.service.ShorteningService;
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.infra.inmemory.InMemoryLinkStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Один проход очистки LinkLifecycleService: деактивация ссылок с наступившим сроком.
+// Перед каждым замером сервис собирается заново, чтобы просроченные ссылки снова были активны
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LifecycleBenchmark {
+
+    @Param({"100000"})
+    public int links;
+
+    @Param({"1", "50"})
+    public int expiredPercent;
+
+    private BenchmarkEnvironment environment;
+    private ShorteningService service;
+
+    @Setup(Level.Trial)
+    public void setUpEnvironment() {
+        environment = BenchmarkEnvironment.create(Map.of("persistence.mode", "snapshot"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownEnvironment() {
+        environment.delete();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        UUID[] owners = BenchmarkEnvironment.owners(100);
+        LocalDateTime past = LocalDateTime.now().minusHours(1);
+        LocalDateTime future = LocalDateTime.now().plusHours(1);
+
+        LinkStorage storage = new InMemoryLinkStorage();
+        for (int i = 0; i < links; i++) {
+            boolean expired = i % 100 < expiredPercent;
+            storage.put(BenchmarkEnvironment.syntheticLink(i, owners, expired ? past : future));
+        }
+        service = new ShorteningService(storage);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public List<ShortLink> cleanupExpiredLinks() {
+        return service.expireDueLinks(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,54 @@
+package com.urlshortener.bench;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.persistence.LinkLineFormat;
+
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Объем кучи на одну ссылку: 1 млн ссылок, разобранных из текстового формата.
+// Запуск: java -cp target/benchmarks.jar com.urlshortener.bench.LinkFootprint [число ссылок]
+public final class LinkFootprint {
+
+    private LinkFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        UUID[] owners = BenchmarkEnvironment.owners(1000);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            ShortLink link = BenchmarkEnvironment.syntheticLink(i, owners, expiresAt);
+            lines[i] = LinkLineFormat.format(link);
+        }
+
+        long before = usedHeap();
+        ShortLink[] links = new ShortLink[count];
+        for (int i = 0; i < count; i++) {
+            links[i] = LinkLineFormat.parse(lines[i]);
+        }
+        long after = usedHeap();
+
+        long urlBytes = 0;
+        for (ShortLink link : links) {
+            urlBytes += 24 + 16 + ((link.getOriginalUrl().length() + 7) & ~7);
+        }
+
+        System.out.printf("Ссылок: %d%n", count);
+        System.out.printf("Байт на ссылку: %d, без строки URL: %d%n",
+                (after - before) / count, (after - before - urlBytes) / count);
+        // Ссылки должны оставаться достижимыми до последнего замера
+        Reference.reachabilityFence(links);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.bench;
+
+import com.urlshortener.core.persistence.LinkPersistence;
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.infra.inmemory.InMemoryLinkStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка файла ссылок при старте и полная перезапись снимка (сжатие журнала)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int links;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private BenchmarkEnvironment environment;
+    private LinkStorage savedLinks;
+    private LinkPersistence savedPersistence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.create(Map.of(
+                "storage.format", format,
+                "persistence.durability", "sync"));
+
+        UUID[] owners = BenchmarkEnvironment.owners(1000);
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        savedLinks = new InMemoryLinkStorage();
+        for (int i = 0; i < links; i++) {
+            savedLinks.put(BenchmarkEnvironment.syntheticLink(i, owners, expiresAt));
+        }
+
+        savedPersistence = newPersistence(savedLinks);
+        savedPersistence.compact();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        savedPersistence.close();
+        environment.delete();
+    }
+
+    @Benchmark
+    public int load() {
+        LinkStorage storage = new InMemoryLinkStorage();
+        LinkPersistence persistence = newPersistence(storage);
+        try {
+            persistence.load();
+            return storage.size();
+        } finally {
+            persistence.close();
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        savedPersistence.compact();
+    }
+
+    private LinkPersistence newPersistence(LinkStorage storage) {
+        return new LinkPersistence(storage,
+                environment.file("links.txt"),
+                environment.file("links.bin"),
+                environment.file("links.log"));
+    }
+}
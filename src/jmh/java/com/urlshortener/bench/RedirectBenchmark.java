@@ -0,0 +1,97 @@
+package com.urlshortener.bench;
+
+import com.urlshortener.core.service.RedirectResult;
+import com.urlshortener.core.service.RedirectService;
+import com.urlshortener.core.service.ShorteningService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Переходы по ссылкам. JVM запускается в headless-режиме, поэтому redirect() не открывает
+// браузер и измеряет только проверку ссылки, учет перехода и сборку ответа.
+// Обращения распределены неравномерно: 90% приходится на 1% кодов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class RedirectBenchmark {
+
+    @Param({"100000"})
+    public int links;
+
+    @Param({"0", "10000"})
+    public int cacheCapacity;
+
+    private BenchmarkEnvironment environment;
+    private ShorteningService shorteningService;
+    private RedirectService redirectService;
+    private String[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.create(Map.of(
+                "cache.hot.capacity", String.valueOf(cacheCapacity)));
+        shorteningService = new ShorteningService();
+        redirectService = new RedirectService(shorteningService);
+
+        UUID owner = UUID.randomUUID();
+        codes = new String[links];
+        for (int i = 0; i < links; i++) {
+            codes[i] = shorteningService.createShortLink("https://example.com/target/" + i, owner);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shorteningService.close();
+        environment.delete();
+    }
+
+    @State(Scope.Thread)
+    public static class Traffic {
+        private long seed = System.nanoTime();
+
+        String nextCode(String[] codes) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int random = (int) (seed >>> 33);
+            int hotCodes = Math.max(1, codes.length / 100);
+            int index = random % 10 != 0
+                    ? (random >>> 4) % hotCodes
+                    : (random >>> 4) % codes.length;
+            return codes[index];
+        }
+    }
+
+    @Benchmark
+    public String redirect(Traffic traffic) {
+        return redirectService.redirect(traffic.nextCode(codes));
+    }
+
+    @Benchmark
+    public RedirectResult resolve(Traffic traffic) {
+        return redirectService.resolve(traffic.nextCode(codes));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RedirectResult resolveConcurrent(Traffic traffic) {
+        return redirectService.resolve(traffic.nextCode(codes));
+    }
+}
@@ -0,0 +1,98 @@
+package com.urlshortener.bench;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.service.ShorteningService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Создание ссылок и поиск по коду, в один и в четыре потока
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShorteningBenchmark {
+
+    @Param({"10000"})
+    public int preloaded;
+
+    @Param({"async", "group-commit"})
+    public String durability;
+
+    @Param({"heap", "offheap"})
+    public String engine;
+
+    private BenchmarkEnvironment environment;
+    private ShorteningService service;
+    private String[] codes;
+    private final UUID owner = UUID.randomUUID();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.create(Map.of(
+                "persistence.durability", durability,
+                "storage.engine", engine));
+        service = new ShorteningService();
+
+        codes = new String[preloaded];
+        for (int i = 0; i < preloaded; i++) {
+            codes[i] = service.createShortLink("https://example.com/preloaded/" + i, owner);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+        environment.delete();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String nextCode(String[] codes) {
+            String code = codes[next];
+            next = next + 1 == codes.length ? 0 : next + 1;
+            return code;
+        }
+    }
+
+    @Benchmark
+    public String createShortLink() {
+        return service.createShortLink("https://example.com/new", owner);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String createShortLinkConcurrent() {
+        return service.createShortLink("https://example.com/new", owner);
+    }
+
+    @Benchmark
+    public ShortLink getShortLink(Cursor cursor) {
+        return service.getShortLink(cursor.nextCode(codes));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ShortLink getShortLinkConcurrent(Cursor cursor) {
+        return service.getShortLink(cursor.nextCode(codes));
+    }
+}
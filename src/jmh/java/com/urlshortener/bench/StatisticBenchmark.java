@@ -0,0 +1,91 @@
+package com.urlshortener.bench;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.service.ShorteningService;
+import com.urlshortener.core.service.StatisticService;
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.infra.inmemory.InMemoryLinkStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Список ссылок пользователя при разном числе ссылок на владельца
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StatisticBenchmark {
+
+    @Param({"1000000"})
+    public int links;
+
+    @Param({"10", "1000"})
+    public int linksPerOwner;
+
+    private BenchmarkEnvironment environment;
+    private ShorteningService shorteningService;
+    private StatisticService statisticService;
+    private UUID[] owners;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.create(Map.of("persistence.mode", "snapshot"));
+
+        owners = BenchmarkEnvironment.owners(Math.max(1, links / linksPerOwner));
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        LinkStorage storage = new InMemoryLinkStorage();
+        for (int i = 0; i < links; i++) {
+            storage.put(BenchmarkEnvironment.syntheticLink(i, owners, expiresAt));
+        }
+
+        shorteningService = new ShorteningService(storage);
+        statisticService = new StatisticService(shorteningService);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shorteningService.close();
+        environment.delete();
+    }
+
+    @State(Scope.Thread)
+    public static class OwnerCursor {
+        private int next;
+
+        UUID nextOwner(UUID[] owners) {
+            UUID owner = owners[next];
+            next = next + 1 == owners.length ? 0 : next + 1;
+            return owner;
+        }
+    }
+
+    @Benchmark
+    public List<ShortLink> getUserLinks(OwnerCursor cursor) {
+        return statisticService.getUserLinks(cursor.nextOwner(owners));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<ShortLink> getUserLinksConcurrent(OwnerCursor cursor) {
+        return statisticService.getUserLinks(cursor.nextOwner(owners));
+    }
+}
@@ -1,28 +1,58 @@
 package com.urlshortener.cli;
 
 import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.exception.RateLimitExceededException;
+import com.urlshortener.core.metrics.Metrics;
 import com.urlshortener.core.model.ShortLink;
 import com.urlshortener.core.service.*;
-
+import com.urlshortener.core.traffic.LinkTraffic;
+import com.urlshortener.core.traffic.TopLink;
+import com.urlshortener.core.transfer.LinkExporter;
+import com.urlshortener.core.transfer.LinkFilter;
+import com.urlshortener.core.transfer.LinkImporter;
+import com.urlshortener.core.transfer.TransferProgress;
+import com.urlshortener.core.transfer.TransferStats;
+import com.urlshortener.http.RedirectHttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Scanner;
 import java.util.UUID;
 
 public class ConsoleApplication {
+    private static final int BATCH_PRINT_LIMIT = 50;
+
     private final UserService userService = new UserService();
     private final ShorteningService shorteningService = new ShorteningService();
     private final RedirectService redirectService = new RedirectService(shorteningService);
     private final StatisticService statisticService = new StatisticService(shorteningService);
     private final LinkLifecycleService lifecycleService = new LinkLifecycleService(shorteningService);
+    private volatile RedirectHttpServer httpServer;
     private UUID currentUserId;
 
     public void run() {
         lifecycleService.start();
+        AppConfig.getInstance().startWatching();
+        startHttpServer();
 
         // Останавливаем службу при завершении
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (httpServer != null) {
+                httpServer.stop();
+            }
+            AppConfig.getInstance().stopWatching();
             lifecycleService.stop();
+            shorteningService.close();
         }));
 
         Scanner scanner = new Scanner(System.in);
@@ -46,6 +76,10 @@ public class ConsoleApplication {
                     handleCreateCommand(parts);
                     break;
 
+                case "create-batch":
+                    handleCreateBatchCommand(parts);
+                    break;
+
                 case "go":
                     handleGoCommand(parts);
                     break;
@@ -95,6 +129,22 @@ public class ConsoleApplication {
                     handleConfigCommand();
                     break;
 
+                case "metrics":
+                    handleMetricsCommand();
+                    break;
+
+                case "top":
+                    handleTopCommand(parts);
+                    break;
+
+                case "export":
+                    handleExportCommand(parts);
+                    break;
+
+                case "import":
+                    handleImportCommand(parts);
+                    break;
+
                 case "exit":
                     System.out.println("До свидания!");
                     scanner.close();
@@ -106,6 +156,23 @@ public class ConsoleApplication {
         }
     }
 
+    // HTTP-сервер переходов работает рядом с консолью, если включен http.enabled
+    private void startHttpServer() {
+        AppConfig config = AppConfig.getInstance();
+        if (!config.isHttpEnabled()) {
+            return;
+        }
+
+        RedirectHttpServer server = new RedirectHttpServer(redirectService,
+                config.getHttpPort(), config.getHttpThreads(), config.getHttpBacklog());
+        try {
+            server.start();
+            httpServer = server;
+        } catch (IOException e) {
+            System.err.println("Не удалось запустить HTTP-сервер: " + e.getMessage());
+        }
+    }
+
     private void handleCreateCommand(String[] parts) {
         if (parts.length < 2) {
             System.out.println("Ошибка: укажите URL. Пример: create https://example.com");
@@ -134,13 +201,75 @@ public class ConsoleApplication {
 
             // Показываем информацию о новой ссылке
             System.out.println("\n" + lifecycleService.checkLinkStatus(shortCode));
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | RateLimitExceededException e) {
             System.out.println(e.getMessage());
         } catch (Exception e) {
             System.out.println("Ошибка при создании ссылки: " + e.getMessage());
         }
     }
 
+    // Файл со списком URL, по одному в строке; пустые строки пропускаются
+    private void handleCreateBatchCommand(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Ошибка: укажите файл со списком URL. Пример: create-batch urls.txt");
+            return;
+        }
+
+        Path file = Paths.get(parts[1]);
+        List<String> urls = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String url = lines.get(i).trim();
+                if (!url.isEmpty()) {
+                    urls.add(url);
+                    lineNumbers.add(i + 1);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Ошибка чтения файла " + file + ": " + e.getMessage());
+            return;
+        }
+
+        if (urls.isEmpty()) {
+            System.out.println("Файл не содержит URL");
+            return;
+        }
+
+        List<LinkCreationResult> results;
+        try {
+            results = shorteningService.createShortLinks(urls, currentUserId);
+        } catch (Exception e) {
+            System.out.println("Ошибка при создании ссылок: " + e.getMessage());
+            return;
+        }
+
+        String domain = AppConfig.getInstance().getShortLinkDomain();
+        int created = 0;
+        int reused = 0;
+        for (int i = 0; i < results.size(); i++) {
+            LinkCreationResult result = results.get(i);
+            if (result.isCreated()) {
+                if (result.isReused()) {
+                    reused++;
+                }
+                if (++created <= BATCH_PRINT_LIMIT) {
+                    System.out.println("  http://" + domain + "/" + result.getShortCode() + " -> " + result.getOriginalUrl()
+                            + (result.isReused() ? " (существующая ссылка)" : ""));
+                }
+            } else {
+                System.out.println("  Строка " + lineNumbers.get(i) + ": " + result.getError());
+            }
+        }
+
+        if (created > BATCH_PRINT_LIMIT) {
+            System.out.println("  ... и еще " + (created - BATCH_PRINT_LIMIT) + " ссылок");
+        }
+        System.out.println("Создано ссылок: " + created + " из " + results.size()
+                + (reused > 0 ? ", из них существующих: " + reused : ""));
+    }
+
     private void handleGoCommand(String[] parts) {
         if (parts.length < 2) {
             System.out.println("Ошибка: укажите код ссылки. Пример: go abc123");
@@ -169,10 +298,22 @@ public class ConsoleApplication {
             }
 
             System.out.printf("  %s %s -> %s%n", statusIcon, link.getShortCode(), shortUrl);
-            System.out.printf("     Переходы: %d/%d, Действует до: %s%n%n",
+            System.out.printf("     Переходы: %d/%d, Действует до: %s%n",
                     link.getCurrentClicks(),
                     link.getMaxClicks(),
                     link.getExpiresAt().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")));
+            LinkTraffic traffic = statisticService.getLinkTraffic(link.getShortCode());
+            if (traffic != null) {
+                System.out.printf("     За 5 минут: %d (%.1f/мин), за час: %d, за сутки: %d%n",
+                        traffic.getLastFiveMinutes(), traffic.getPerMinuteRate(),
+                        traffic.getLastHour(), traffic.getLastDay());
+            }
+            System.out.println();
+        }
+
+        LinkTraffic total = statisticService.getTotalTraffic();
+        if (total != null) {
+            System.out.println("Трафик по всем ссылкам: " + total);
         }
     }
 
@@ -230,6 +371,150 @@ public class ConsoleApplication {
         System.out.println("================================\n");
     }
 
+    private void handleTopCommand(String[] parts) {
+        int limit = 10;
+        if (parts.length > 1) {
+            try {
+                limit = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException e) {
+                System.out.println("Ошибка: N должно быть числом. Пример: top 20");
+                return;
+            }
+            if (limit <= 0) {
+                System.out.println("Ошибка: N должно быть больше нуля");
+                return;
+            }
+        }
+
+        List<TopLink> top = statisticService.getTopLinks(limit);
+        if (top == null) {
+            System.out.println("Список самых посещаемых ссылок выключен (traffic.enabled, top.enabled)");
+            return;
+        }
+        if (top.isEmpty()) {
+            System.out.println("Переходов за последнее время не было");
+            return;
+        }
+
+        System.out.println("\n Самые посещаемые ссылки (оценка недавних переходов):");
+        int rank = 1;
+        for (TopLink link : top) {
+            ShortLink shortLink = shorteningService.getShortLink(link.getShortCode());
+            String url = shortLink != null ? shortLink.getOriginalUrl() : "(удалена)";
+            if (url.length() > 50) {
+                url = url.substring(0, 47) + "...";
+            }
+            System.out.printf("  %3d. %-12s ~%-8d %s%n", rank++, link.getShortCode(), link.getEstimate(), url);
+        }
+    }
+
+    private void handleMetricsCommand() {
+        System.out.println("\n Метрики:");
+        System.out.println("================================");
+        System.out.print(Metrics.getInstance().toReport());
+        System.out.println("================================\n");
+    }
+
+    private void handleExportCommand(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Ошибка: укажите файл. Пример: export links.ndjson.gz owner=me active");
+            return;
+        }
+
+        LinkFilter filter = parseFilter(parts);
+        if (filter == null) {
+            return;
+        }
+
+        try {
+            TransferStats stats = new LinkExporter(shorteningService)
+                    .export(Paths.get(parts[1]), filter, ConsoleApplication::printProgress);
+            System.out.printf("Выгружено ссылок: %d из %d за %d мс (%d зап/с)%n",
+                    stats.getTransferred(), stats.getProcessed(),
+                    stats.getElapsedMillis(), stats.getRecordsPerSecond());
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Ошибка выгрузки: " + e.getMessage());
+        }
+    }
+
+    private void handleImportCommand(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Ошибка: укажите файл. Пример: import links.csv");
+            return;
+        }
+
+        LinkFilter filter = parseFilter(parts);
+        if (filter == null) {
+            return;
+        }
+
+        try {
+            TransferStats stats = new LinkImporter(shorteningService)
+                    .importFrom(Paths.get(parts[1]), filter, ConsoleApplication::printProgress);
+            for (String error : stats.getErrors()) {
+                System.out.println("  " + error);
+            }
+            if (stats.getRejected() > stats.getErrors().size()) {
+                System.out.println("  ... и еще " + (stats.getRejected() - stats.getErrors().size()) + " ошибок");
+            }
+            System.out.printf("Загружено ссылок: %d из %d за %d мс (%d зап/с)%n",
+                    stats.getTransferred(), stats.getProcessed(),
+                    stats.getElapsedMillis(), stats.getRecordsPerSecond());
+            System.out.printf("Пропущено: по фильтру %d, код занят %d, с ошибками %d%n",
+                    stats.getFiltered(), stats.getDuplicates(), stats.getRejected());
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.out.println("Ошибка загрузки: " + e.getMessage());
+        }
+    }
+
+    // Фильтры после имени файла: owner=<UUID>|me, active, inactive,
+    // expires-from=<дата>, expires-before=<дата>. Возвращает null при ошибке
+    private LinkFilter parseFilter(String[] parts) {
+        UUID owner = null;
+        Boolean active = null;
+        LocalDateTime expiresFrom = null;
+        LocalDateTime expiresBefore = null;
+
+        try {
+            for (int i = 2; i < parts.length; i++) {
+                String option = parts[i];
+                if (option.equalsIgnoreCase("active")) {
+                    active = true;
+                } else if (option.equalsIgnoreCase("inactive")) {
+                    active = false;
+                } else if (option.startsWith("owner=")) {
+                    String value = option.substring("owner=".length());
+                    owner = value.equalsIgnoreCase("me") ? currentUserId : UUID.fromString(value);
+                } else if (option.startsWith("expires-from=")) {
+                    expiresFrom = parseDateTime(option.substring("expires-from=".length()));
+                } else if (option.startsWith("expires-before=")) {
+                    expiresBefore = parseDateTime(option.substring("expires-before=".length()));
+                } else {
+                    System.out.println("Неизвестный фильтр: '" + option + "'");
+                    System.out.println("Доступно: owner=<UUID>|me, active, inactive, expires-from=<дата>, expires-before=<дата>");
+                    return null;
+                }
+            }
+        } catch (DateTimeParseException e) {
+            System.out.println("Неверный формат даты: '" + e.getParsedString() + "'. Пример: 2025-12-31 или 2025-12-31T18:00");
+            return null;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Неверный формат UUID");
+            return null;
+        }
+
+        return new LinkFilter(owner, active, expiresFrom, expiresBefore);
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        return value.indexOf('T') >= 0 ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+    }
+
+    private static void printProgress(long processed, long elapsedNanos) {
+        System.out.printf("  обработано записей: %d (%d зап/с)%n",
+                processed, elapsedNanos == 0 ? 0 : processed * 1_000_000_000L / elapsedNanos);
+    }
+
     private void handleEditCommand(String[] parts) {
         if (parts.length < 4) {
             System.out.println("Неверный формат команды.");
@@ -269,6 +554,8 @@ public class ConsoleApplication {
 
         } catch (NumberFormatException e) {
             System.out.println("Неверный формат числа: '" + valueStr + "'");
+        } catch (UncheckedIOException e) {
+            System.out.println("Ошибка при обновлении ссылки: " + e.getMessage());
         }
     }
 
@@ -284,7 +571,7 @@ public class ConsoleApplication {
         for (UUID userId : allUsers) {
             String currentMarker = userId.equals(currentUserId) ? " ← текущий" : "";
 
-            long linkCount = statisticService.getUserLinks(userId).size();
+            int linkCount = statisticService.countUserLinks(userId);
 
             System.out.printf("  %s (ссылок: %d)%s%n",
                     userId, linkCount, currentMarker);
@@ -343,16 +630,19 @@ public class ConsoleApplication {
             return;
         }
 
-        boolean success = shorteningService.deleteLink(shortCode, currentUserId);
-
-        if (success) {
-            System.out.println("Ссылка успешно удалена");
+        try {
+            if (shorteningService.deleteLink(shortCode, currentUserId)) {
+                System.out.println("Ссылка успешно удалена");
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("Ошибка при удалении ссылки: " + e.getMessage());
         }
     }
 
     private void printHelp() {
         System.out.println("\nДоступные команды:");
         System.out.println("  create <URL>              - создать короткую ссылку");
+        System.out.println("  create-batch <файл>       - создать ссылки из файла (URL по строкам)");
         System.out.println("  go <код>                  - перейти по короткой ссылке");
         System.out.println("  stats                     - показать все мои ссылки");
         System.out.println("  info <код>                - подробная информация о ссылке");
@@ -365,6 +655,10 @@ public class ConsoleApplication {
         System.out.println("  newuser                   - создать нового пользователя");
         System.out.println("  reset-user                - сбросить ID (для тестирования)");
         System.out.println("  config                    - показать текущую конфигурацию");
+        System.out.println("  metrics                   - задержки и счетчики операций");
+        System.out.println("  top [N]                   - самые посещаемые ссылки за последнее время");
+        System.out.println("  export <файл> [фильтры]   - выгрузить ссылки в .ndjson/.csv (можно .gz)");
+        System.out.println("  import <файл> [фильтры]   - загрузить ссылки из .ndjson/.csv (можно .gz)");
         System.out.println("  help или ?                - справка");
         System.out.println("  exit                      - выход");
         System.out.println("=================================\n");
@@ -0,0 +1,49 @@
+package com.urlshortener.cli;
+
+import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.service.LinkLifecycleService;
+import com.urlshortener.core.service.RedirectService;
+import com.urlshortener.core.service.ShorteningService;
+import com.urlshortener.http.RedirectHttpServer;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+// Запуск только HTTP-сервера переходов, без консоли.
+// Запуск: HttpServerApplication [порт]
+public class HttpServerApplication {
+
+    public static void main(String[] args) {
+        AppConfig config = AppConfig.getInstance();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : config.getHttpPort();
+
+        ShorteningService shorteningService = new ShorteningService();
+        LinkLifecycleService lifecycleService = new LinkLifecycleService(shorteningService);
+        RedirectHttpServer server = new RedirectHttpServer(new RedirectService(shorteningService),
+                port, config.getHttpThreads(), config.getHttpBacklog());
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            config.stopWatching();
+            lifecycleService.stop();
+            shorteningService.close();
+            stopped.countDown();
+        }));
+
+        lifecycleService.start();
+        config.startWatching();
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Не удалось запустить HTTP-сервер: " + e.getMessage());
+            System.exit(1);
+        }
+
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.urlshortener.cli;
+
+import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.persistence.BinarySnapshot;
+import com.urlshortener.core.persistence.LinkLineFormat;
+import com.urlshortener.core.persistence.ShardedLinkPersistence;
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.core.storage.ShardedLinkStorage;
+import com.urlshortener.infra.inmemory.InMemoryLinkStorage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Разовое перешардирование файлов ссылок при остановленном приложении.
+// Запуск: ReshardTool <новое число шардов> [текущее число шардов]
+// Текущее число по умолчанию определяется по файлам. Снимки новой раскладки сначала пишутся
+// во временные файлы *.reshard и только после удаления старых файлов получают свои имена
+public class ReshardTool {
+    private static final String TEMP_SUFFIX = ".reshard";
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Использование: ReshardTool <новое число шардов> [текущее число шардов]");
+            System.exit(1);
+        }
+
+        AppConfig config = AppConfig.getInstance();
+        Path snapshotFile = Paths.get(config.getStorageFile());
+        Path binaryFile = Paths.get(config.getBinaryStorageFile());
+        Path journalFile = Paths.get(config.getJournalFile());
+        boolean binaryFormat = "binary".equalsIgnoreCase(config.getStorageFormat());
+
+        try {
+            int target = Integer.parseInt(args[0]);
+            int current = args.length > 1
+                    ? Integer.parseInt(args[1])
+                    : ShardedLinkPersistence.detectShardCount(snapshotFile, binaryFile, journalFile);
+            if (target <= 0 || current < 0) {
+                System.err.println("Число шардов должно быть положительным");
+                System.exit(1);
+            }
+            if (current == 0) {
+                System.out.println("Файлы ссылок не найдены, перешардировать нечего");
+                return;
+            }
+            if (current == target) {
+                System.out.println("Файлы ссылок уже разложены на " + target + " шард(ов)");
+                return;
+            }
+
+            long started = System.nanoTime();
+
+            ShardedLinkStorage source = newStorage(current);
+            ShardedLinkPersistence persistence = new ShardedLinkPersistence(source, snapshotFile, binaryFile, journalFile);
+            persistence.load();
+            persistence.close();
+
+            ShardedLinkStorage resharded = newStorage(target);
+            source.forEach(resharded::put);
+
+            Path targetFile = binaryFormat ? binaryFile : snapshotFile;
+            List<Path> written = new ArrayList<>(target);
+            for (int i = 0; i < target; i++) {
+                Path shardFile = ShardedLinkPersistence.shardFile(targetFile, i, target);
+                Path tempFile = shardFile.resolveSibling(shardFile.getFileName() + TEMP_SUFFIX);
+                writeSnapshot(resharded.getShard(i), tempFile, binaryFormat);
+                written.add(tempFile);
+            }
+
+            for (int i = 0; i < current; i++) {
+                Files.deleteIfExists(ShardedLinkPersistence.shardFile(snapshotFile, i, current));
+                Files.deleteIfExists(ShardedLinkPersistence.shardFile(binaryFile, i, current));
+                Files.deleteIfExists(ShardedLinkPersistence.shardFile(journalFile, i, current));
+            }
+
+            for (Path tempFile : written) {
+                String name = tempFile.getFileName().toString();
+                move(tempFile, tempFile.resolveSibling(name.substring(0, name.length() - TEMP_SUFFIX.length())));
+            }
+
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            System.out.println("Перешардировано ссылок: " + resharded.size() +
+                    ", шардов: " + current + " -> " + target +
+                    ", время: " + elapsedMillis + " мс");
+            System.out.println("Установите storage.shards=" + target + " перед запуском приложения");
+        } catch (NumberFormatException e) {
+            System.err.println("Неверное число шардов: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Ошибка перешардирования: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static ShardedLinkStorage newStorage(int shardCount) {
+        LinkStorage[] shards = new LinkStorage[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new InMemoryLinkStorage();
+        }
+        return new ShardedLinkStorage(shards);
+    }
+
+    private static void writeSnapshot(LinkStorage shard, Path file, boolean binaryFormat) throws IOException {
+        if (binaryFormat) {
+            try (BinarySnapshot.Writer writer = BinarySnapshot.open(file)) {
+                for (ShortLink link : shard) {
+                    writer.write(link);
+                }
+            }
+            return;
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (ShortLink link : shard) {
+                writer.write(LinkLineFormat.format(link));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
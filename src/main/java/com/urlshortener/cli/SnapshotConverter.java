@@ -0,0 +1,63 @@
+package com.urlshortener.cli;
+
+import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.persistence.BinarySnapshot;
+import com.urlshortener.core.persistence.LinkLineFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Разовая конвертация текстового файла ссылок в бинарный снимок.
+// Запуск: SnapshotConverter [текстовый файл] [бинарный файл]
+public class SnapshotConverter {
+
+    public static void main(String[] args) {
+        AppConfig config = AppConfig.getInstance();
+        Path source = Paths.get(args.length > 0 ? args[0] : config.getStorageFile());
+        Path target = Paths.get(args.length > 1 ? args[1] : config.getBinaryStorageFile());
+
+        if (!Files.exists(source)) {
+            System.err.println("Файл не найден: " + source);
+            System.exit(1);
+        }
+
+        long started = System.nanoTime();
+        int skipped = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+             BinarySnapshot.Writer writer = BinarySnapshot.open(target)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    ShortLink link = LinkLineFormat.parse(line);
+                    if (link == null) {
+                        System.err.println("Пропущена некорректная строка: " + line);
+                        skipped++;
+                        continue;
+                    }
+                    writer.write(link);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    System.err.println("Ошибка парсинга строки: " + line);
+                    System.err.println("Причина: " + e.getMessage());
+                    skipped++;
+                }
+            }
+
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            System.out.println("Конвертировано ссылок: " + writer.getCount() +
+                    ", пропущено строк: " + skipped +
+                    ", время: " + elapsedMillis + " мс");
+            System.out.println("Бинарный снимок: " + target);
+        } catch (IOException e) {
+            System.err.println("Ошибка конвертации: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
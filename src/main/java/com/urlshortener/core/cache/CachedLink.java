@@ -0,0 +1,90 @@
+package com.urlshortener.core.cache;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+
+// Готовый к отдаче переход: значение Location и срок действия в миллисекундах эпохи,
+// чтобы на каждом запросе не создавать LocalDateTime.now() и не собирать ответ заново.
+// Счетчики переходов и активность читаются из самой ссылки и всегда актуальны
+public final class CachedLink {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final ShortLink link;
+    private final String location;
+    private final String locationHeader;
+    private final long expiresAtEpochSecond;
+    private final long expiresAtMillis;
+
+    public CachedLink(ShortLink link) {
+        this.link = link;
+        this.location = link.getOriginalUrl();
+        this.locationHeader = toHeaderValue(location);
+        this.expiresAtEpochSecond = link.getExpiresAtEpochSecond();
+        this.expiresAtMillis = link.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public ShortLink getLink() {
+        return link;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    // Значение заголовка Location из одних ASCII-символов: HttpServer пишет каждый символ
+    // заголовка одним байтом, поэтому остальные символы заранее кодируются в %XX по UTF-8
+    public String getLocationHeader() {
+        return locationHeader;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis > expiresAtMillis;
+    }
+
+    // Срок ссылки изменился после заполнения кэша
+    boolean isStale() {
+        return link.getExpiresAtEpochSecond() != expiresAtEpochSecond;
+    }
+
+    String getShortCode() {
+        return link.getShortCode();
+    }
+
+    // Для URL из одних печатных ASCII-символов возвращает ту же строку
+    private static String toHeaderValue(String url) {
+        int i = 0;
+        while (i < url.length() && isHeaderSafe(url.charAt(i))) {
+            i++;
+        }
+        if (i == url.length()) {
+            return url;
+        }
+
+        StringBuilder header = new StringBuilder(url.length() + 16).append(url, 0, i);
+        while (i < url.length()) {
+            char c = url.charAt(i);
+            if (isHeaderSafe(c)) {
+                header.append(c);
+                i++;
+                continue;
+            }
+
+            int codePoint = url.codePointAt(i);
+            for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                header.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return header.toString();
+    }
+
+    private static boolean isHeaderSafe(char c) {
+        return c > 0x20 && c < 0x7F;
+    }
+}
@@ -0,0 +1,73 @@
+package com.urlshortener.core.cache;
+
+// Приблизительная частота обращений к ключам (Count-Min sketch с 4-битными счетчиками).
+// Каждое long хранит 16 счетчиков, ключ попадает в 4 счетчика, частота - минимум из них.
+// После 10 * capacity обращений все счетчики делятся пополам, чтобы старая популярность угасала.
+// Обновления не атомарны: потерянное при гонке приращение лишь чуть занижает оценку
+class FrequencySketch {
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final int MAX_COUNTER = 15;
+    private static final int MAX_TABLE_SIZE = 1 << 26;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int size = 8;
+        while (size < capacity && size < MAX_TABLE_SIZE) {
+            size <<= 1;
+        }
+        this.table = new long[size];
+        this.tableMask = table.length - 1;
+        this.sampleSize = Math.max(1, capacity) * 10;
+    }
+
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNTER;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int h = hash * SEEDS[i];
+            h ^= h >>> 17;
+            int index = (h >>> 4) & tableMask;
+            int shift = (h & 15) << 2;
+            frequency = Math.min(frequency, (int) ((table[index] >>> shift) & MAX_COUNTER));
+        }
+        return frequency;
+    }
+
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int h = hash * SEEDS[i];
+            h ^= h >>> 17;
+            int index = (h >>> 4) & tableMask;
+            int shift = (h & 15) << 2;
+            long value = table[index];
+            if (((value >>> shift) & MAX_COUNTER) < MAX_COUNTER) {
+                table[index] = value + (1L << shift);
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        additions = 0;
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45D9F3B;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,223 @@
+package com.urlshortener.core.cache;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Ограниченный кэш популярных ссылок перед хранилищем. Чтение идет без блокировок через
+// ConcurrentHashMap. При заполнении кандидат на вытеснение выбирается из случайной выборки
+// записей по наименьшей частоте, а новая ссылка вытесняет его, только если обращались к ней
+// чаще (допуск в духе TinyLFU). Так редкие коды не вымывают из кэша горячие.
+// Емкость меняется на ходу: resize строит новые таблицы и переносит в них самые частые записи
+public class HotLinkCache {
+    private static final int SAMPLE_SIZE = 8;
+
+    private final Object lock = new Object();
+    // Таблицы текущей емкости; заменяются целиком под lock, читаются без блокировки
+    private volatile Table table;
+    // Меняется при каждом сбросе записи под lock. Промах запоминает значение до загрузки
+    // и не кладет ссылку в кэш, если за время загрузки ее могли удалить или изменить
+    private volatile long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public HotLinkCache(int capacity) {
+        this.table = new Table(Math.max(0, capacity));
+    }
+
+    // Возвращает переход из кэша или загружает ссылку через loader; null, если ссылки нет
+    public CachedLink get(String shortCode, Function<String, ShortLink> loader) {
+        Table current = table;
+        if (current.capacity == 0) {
+            ShortLink link = loader.apply(shortCode);
+            return link != null ? new CachedLink(link) : null;
+        }
+
+        current.sketch.increment(shortCode);
+
+        Entry entry = current.entries.get(shortCode);
+        if (entry != null && !entry.link.isStale()) {
+            hits.increment();
+            return entry.link;
+        }
+
+        misses.increment();
+        long stamp = invalidations;
+        ShortLink link = loader.apply(shortCode);
+        if (link == null) {
+            return null;
+        }
+
+        CachedLink cached = new CachedLink(link);
+        admit(shortCode, cached, stamp);
+        return cached;
+    }
+
+    // Вызывается после изменения или удаления ссылки в хранилище
+    public void invalidate(String shortCode) {
+        synchronized (lock) {
+            invalidations++;
+            Table current = table;
+            Entry entry = current.entries.remove(shortCode);
+            if (entry != null) {
+                current.release(entry);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            invalidations++;
+            Table current = table;
+            current.entries.clear();
+            Arrays.fill(current.slots, 0, current.size, null);
+            current.size = 0;
+        }
+    }
+
+    // Новая емкость применяется сразу; при уменьшении остаются записи с наибольшей частотой
+    public void resize(int capacity) {
+        int newCapacity = Math.max(0, capacity);
+
+        synchronized (lock) {
+            Table current = table;
+            if (current.capacity == newCapacity) {
+                return;
+            }
+
+            Table resized = new Table(newCapacity);
+            Entry[] live = Arrays.copyOf(current.slots, current.size);
+            Arrays.sort(live, Comparator.comparingInt(
+                    (Entry entry) -> current.sketch.frequency(entry.link.getShortCode())).reversed());
+            for (int i = 0; i < live.length && resized.size < newCapacity; i++) {
+                resized.place(new Entry(live[i].link), resized.size++);
+            }
+            evictions.add(live.length - resized.size);
+            table = resized;
+        }
+    }
+
+    private void admit(String shortCode, CachedLink cached, long stamp) {
+        synchronized (lock) {
+            if (invalidations != stamp) {
+                return;
+            }
+
+            Table current = table;
+            if (current.capacity == 0) {
+                return;
+            }
+
+            Entry existing = current.entries.get(shortCode);
+            if (existing != null) {
+                existing.link = cached;
+                return;
+            }
+
+            if (current.size < current.capacity) {
+                current.place(new Entry(cached), current.size++);
+                return;
+            }
+
+            Entry victim = current.sampleVictim();
+            if (current.sketch.frequency(shortCode) <= current.sketch.frequency(victim.link.getShortCode())) {
+                rejections.increment();
+                return;
+            }
+
+            current.entries.remove(victim.link.getShortCode());
+            evictions.increment();
+            current.place(new Entry(cached), victim.slot);
+        }
+    }
+
+    public int size() {
+        return table.entries.size();
+    }
+
+    public int getCapacity() {
+        return table.capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Ссылки, не допущенные в заполненный кэш из-за меньшей частоты, чем у кандидата на вытеснение
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    // Записи одной емкости; slots и size меняются только под lock
+    private static final class Table {
+        private final int capacity;
+        private final ConcurrentHashMap<String, Entry> entries;
+        private final FrequencySketch sketch;
+        private final Entry[] slots;
+        private int size;
+
+        private Table(int capacity) {
+            this.capacity = capacity;
+            this.entries = new ConcurrentHashMap<>(Math.max(16, capacity * 4 / 3));
+            this.sketch = new FrequencySketch(capacity);
+            this.slots = new Entry[capacity];
+        }
+
+        private Entry sampleVictim() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Entry victim = null;
+            int victimFrequency = Integer.MAX_VALUE;
+
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                Entry candidate = slots[random.nextInt(size)];
+                int frequency = sketch.frequency(candidate.link.getShortCode());
+                if (frequency < victimFrequency) {
+                    victim = candidate;
+                    victimFrequency = frequency;
+                }
+            }
+            return victim;
+        }
+
+        private void place(Entry entry, int slot) {
+            entry.slot = slot;
+            slots[slot] = entry;
+            entries.put(entry.link.getShortCode(), entry);
+        }
+
+        // Последняя запись переезжает на место удаленной, чтобы выборка шла по плотному массиву
+        private void release(Entry entry) {
+            Entry last = slots[--size];
+            slots[size] = null;
+            if (last != entry) {
+                last.slot = entry.slot;
+                slots[entry.slot] = last;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private volatile CachedLink link;
+        private int slot;
+
+        private Entry(CachedLink link) {
+            this.link = link;
+        }
+    }
+}
@@ -2,105 +2,340 @@ package com.urlshortener.core.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class AppConfig {
-        private static AppConfig instance;
-
-        private final Properties properties;
-
         private static final String CONFIG_FILE = "application.properties";
+        private static final String CONFIG_FILE_PROPERTY = "config.file";
+
+        private final Path externalConfigFile;
+        private final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile ConfigSnapshot snapshot;
+        private ConfigWatcher watcher;
 
         private AppConfig() {
-            properties = new Properties();
-            loadConfiguration();
+            externalConfigFile = Paths.get(System.getProperty(CONFIG_FILE_PROPERTY, CONFIG_FILE));
+            snapshot = new ConfigSnapshot(loadConfiguration());
         }
 
-        public static synchronized AppConfig getInstance() {
-            if (instance == null) {
-                instance = new AppConfig();
-            }
-            return instance;
+        private static final class Holder {
+            private static final AppConfig INSTANCE = new AppConfig();
+        }
+
+        public static AppConfig getInstance() {
+            return Holder.INSTANCE;
+        }
+
+        // Текущий снимок конфигурации; на горячих путях его стоит получить один раз за запрос
+        public ConfigSnapshot snapshot() {
+            return snapshot;
         }
 
-        private void loadConfiguration() {
+        // Значения из classpath перекрываются внешним файлом (-Dconfig.file или ./application.properties)
+        private Properties loadConfiguration() {
+            Properties properties = new Properties();
+
             try (InputStream input = getClass().getClassLoader().getResourceAsStream(CONFIG_FILE)) {
                 if (input == null) {
                     System.err.println("Файл конфигурации '" + CONFIG_FILE + "' не найден.");
                     System.err.println("   Используются значения по умолчанию.");
-                    setDefaultValues();
-                    return;
+                } else {
+                    properties.load(input);
                 }
-
-                properties.load(input);
-
             } catch (IOException e) {
                 System.err.println("Ошибка при загрузке конфигурации: " + e.getMessage());
                 System.err.println("   Используются значения по умолчанию.");
-                setDefaultValues();
+            }
+
+            if (Files.isRegularFile(externalConfigFile)) {
+                try (Reader reader = Files.newBufferedReader(externalConfigFile, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                } catch (IOException e) {
+                    System.err.println("Ошибка при загрузке конфигурации из " + externalConfigFile + ": " + e.getMessage());
+                }
+            }
+            return properties;
+        }
+
+        public void reload() {
+            ConfigSnapshot oldConfig = snapshot;
+            ConfigSnapshot newConfig = new ConfigSnapshot(loadConfiguration());
+            if (newConfig.getValues().equals(oldConfig.getValues())) {
+                return;
+            }
+
+            snapshot = newConfig;
+            System.out.println("Конфигурация перечитана из " + externalConfigFile);
+
+            for (ConfigChangeListener listener : listeners) {
+                try {
+                    listener.onConfigChanged(oldConfig, newConfig);
+                } catch (Exception e) {
+                    System.err.println("Ошибка применения конфигурации: " + e.getMessage());
+                }
             }
         }
 
-        private void setDefaultValues() {
-            properties.setProperty("link.default.ttl.hours", "24");
-            properties.setProperty("link.default.max.clicks", "10");
-            properties.setProperty("cleanup.interval.minutes", "5");
-            properties.setProperty("shortcode.length", "8");
-            properties.setProperty("shortlink.domain", "localhost");
-            properties.setProperty("url.max.length", "2048");
+        public void addChangeListener(ConfigChangeListener listener) {
+            listeners.add(listener);
         }
 
-        public String getProperty(String key) {
-            return properties.getProperty(key);
+        public void removeChangeListener(ConfigChangeListener listener) {
+            listeners.remove(listener);
         }
 
-        public int getIntProperty(String key) {
+        public synchronized void startWatching() {
+            if (watcher != null) {
+                return;
+            }
+
+            watcher = new ConfigWatcher(externalConfigFile, this::reload);
             try {
-                return Integer.parseInt(properties.getProperty(key));
-            } catch (NumberFormatException e) {
-                System.err.println("Неверный формат числа для свойства '" + key + "'. Используется значение по умолчанию.");
-                return getDefaultValue(key);
+                watcher.start();
+            } catch (IOException e) {
+                System.err.println("Не удалось включить перечитывание конфигурации: " + e.getMessage());
+                watcher = null;
             }
         }
 
-        private int getDefaultValue(String key) {
-            switch (key) {
-                case "link.default.ttl.hours": return 24;
-                case "link.default.max.clicks": return 10;
-                case "cleanup.interval.minutes": return 5;
-                case "shortcode.length": return 8;
-                case "url.max.length": return 2048;
-                default: return 0;
+        public synchronized void stopWatching() {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
             }
         }
 
+        public String getProperty(String key) {
+            return snapshot.getProperty(key);
+        }
+
+        public String getProperty(String key, String defaultValue) {
+            String value = snapshot.getProperty(key);
+            return value != null ? value : defaultValue;
+        }
+
+        public int getIntProperty(String key) {
+            return snapshot.intValue(key);
+        }
+
         public int getDefaultTtlHours() {
-            return getIntProperty("link.default.ttl.hours");
+            return snapshot.getDefaultTtlHours();
         }
 
         public int getDefaultMaxClicks() {
-            return getIntProperty("link.default.max.clicks");
+            return snapshot.getDefaultMaxClicks();
         }
 
         public int getCleanupIntervalMinutes() {
-            return getIntProperty("cleanup.interval.minutes");
+            return snapshot.getCleanupIntervalMinutes();
+        }
+
+        public int getExpiryPrecisionSeconds() {
+            return snapshot.getExpiryPrecisionSeconds();
         }
 
         public int getShortCodeLength() {
-            return getIntProperty("shortcode.length");
+            return snapshot.getShortCodeLength();
+        }
+
+        public String getShortCodeGenerator() {
+            return snapshot.getShortCodeGenerator();
+        }
+
+        public String getShortCodeCounterFile() {
+            return snapshot.getShortCodeCounterFile();
+        }
+
+        public Long getShortCodeCounterSeed() {
+            return snapshot.getShortCodeCounterSeed();
+        }
+
+        public int getShortCodeCounterBlockSize() {
+            return snapshot.getShortCodeCounterBlockSize();
         }
 
         public String getShortLinkDomain() {
-            return getProperty("shortlink.domain");
+            return snapshot.getShortLinkDomain();
         }
 
         public int getUrlMaxLength() {
-            return getIntProperty("url.max.length");
+            return snapshot.getUrlMaxLength();
+        }
+
+        public String getStorageFile() {
+            return snapshot.getStorageFile();
+        }
+
+        public String getJournalFile() {
+            return snapshot.getJournalFile();
+        }
+
+        public String getBinaryStorageFile() {
+            return snapshot.getBinaryStorageFile();
+        }
+
+        public String getStorageFormat() {
+            return snapshot.getStorageFormat();
+        }
+
+        public String getStorageEngine() {
+            return snapshot.getStorageEngine();
+        }
+
+        public int getOffHeapChunkSizeMb() {
+            return snapshot.getOffHeapChunkSizeMb();
+        }
+
+        public int getLoadParallelism() {
+            return snapshot.getLoadParallelism();
+        }
+
+        public int getLoadChunkSizeKb() {
+            return snapshot.getLoadChunkSizeKb();
+        }
+
+        public String getClickJournalFile() {
+            return snapshot.getClickJournalFile();
+        }
+
+        public int getClickFlushIntervalMillis() {
+            return snapshot.getClickFlushIntervalMillis();
+        }
+
+        public int getClickFlushThreshold() {
+            return snapshot.getClickFlushThreshold();
+        }
+
+        public int getClickCheckpointIntervalSeconds() {
+            return snapshot.getClickCheckpointIntervalSeconds();
+        }
+
+        public String getPersistenceMode() {
+            return snapshot.getPersistenceMode();
+        }
+
+        public int getJournalCompactThreshold() {
+            return snapshot.getJournalCompactThreshold();
+        }
+
+        public String getPersistenceDurability() {
+            return snapshot.getPersistenceDurability();
+        }
+
+        public int getGroupCommitWindowMillis() {
+            return snapshot.getGroupCommitWindowMillis();
+        }
+
+        public int getGroupCommitMaxBatch() {
+            return snapshot.getGroupCommitMaxBatch();
+        }
+
+        public boolean isHttpEnabled() {
+            return snapshot.isHttpEnabled();
+        }
+
+        public int getHttpPort() {
+            return snapshot.getHttpPort();
+        }
+
+        public int getHttpThreads() {
+            return snapshot.getHttpThreads();
+        }
+
+        public int getHttpBacklog() {
+            return snapshot.getHttpBacklog();
+        }
+
+        public int getHotCacheCapacity() {
+            return snapshot.getHotCacheCapacity();
+        }
+
+        public boolean isDedupEnabled() {
+            return snapshot.isDedupEnabled();
+        }
+
+        public boolean isLookupFilterEnabled() {
+            return snapshot.isLookupFilterEnabled();
+        }
+
+        public double getLookupFilterFalsePositiveRate() {
+            return snapshot.getLookupFilterFalsePositiveRate();
+        }
+
+        public int getLookupFilterRebuildMinutes() {
+            return snapshot.getLookupFilterRebuildMinutes();
+        }
+
+        public int getStorageShards() {
+            return snapshot.getStorageShards();
+        }
+
+        public boolean isTrafficEnabled() {
+            return snapshot.isTrafficEnabled();
+        }
+
+        public int getTrafficRingCapacity() {
+            return snapshot.getTrafficRingCapacity();
+        }
+
+        public int getTrafficMaxLinks() {
+            return snapshot.getTrafficMaxLinks();
+        }
+
+        public boolean isTopEnabled() {
+            return snapshot.isTopEnabled();
+        }
+
+        public int getTopCapacity() {
+            return snapshot.getTopCapacity();
+        }
+
+        public int getTopSketchWidth() {
+            return snapshot.getTopSketchWidth();
+        }
+
+        public int getTopDecaySeconds() {
+            return snapshot.getTopDecaySeconds();
+        }
+
+        public int getTopMetricsSize() {
+            return snapshot.getTopMetricsSize();
+        }
+
+        public boolean isRateLimitEnabled() {
+            return snapshot.isRateLimitEnabled();
+        }
+
+        public int getRateLimitCreatePerSecond() {
+            return snapshot.getRateLimitCreatePerSecond();
+        }
+
+        public int getRateLimitCreateBurst() {
+            return snapshot.getRateLimitCreateBurst();
+        }
+
+        public int getRateLimitRedirectPerSecond() {
+            return snapshot.getRateLimitRedirectPerSecond();
+        }
+
+        public int getRateLimitRedirectBurst() {
+            return snapshot.getRateLimitRedirectBurst();
+        }
+
+        public int getRateLimitIdleSeconds() {
+            return snapshot.getRateLimitIdleSeconds();
         }
 
         public void printAllSettings() {
             System.out.println("\n=== Текущая конфигурация ===");
-            properties.forEach((key, value) -> {
+            snapshot.getValues().forEach((key, value) -> {
                 System.out.println(key + " = " + value);
             });
             System.out.println("============================\n");
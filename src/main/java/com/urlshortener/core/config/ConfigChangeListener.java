@@ -0,0 +1,7 @@
+package com.urlshortener.core.config;
+
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    void onConfigChanged(ConfigSnapshot oldConfig, ConfigSnapshot newConfig);
+}
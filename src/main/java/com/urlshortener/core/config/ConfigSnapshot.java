@@ -0,0 +1,277 @@
+package com.urlshortener.core.config;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// Неизменяемый снимок конфигурации: все значения разобраны один раз при загрузке,
+// поэтому чтение на горячих путях не требует блокировок и Integer.parseInt
+public final class ConfigSnapshot {
+    private final Map<String, String> values;
+
+    private final int defaultTtlHours;
+    private final int defaultMaxClicks;
+    private final int cleanupIntervalMinutes;
+    private final int expiryPrecisionSeconds;
+    private final int shortCodeLength;
+    private final String shortCodeGenerator;
+    private final String shortCodeCounterFile;
+    // null, если ключ перестановки не задан явно и берется из файла счетчика
+    private final Long shortCodeCounterSeed;
+    private final int shortCodeCounterBlockSize;
+    private final String shortLinkDomain;
+    private final int urlMaxLength;
+    private final String storageFile;
+    private final String journalFile;
+    private final String binaryStorageFile;
+    private final String storageFormat;
+    private final String storageEngine;
+    private final int offHeapChunkSizeMb;
+    private final String clickJournalFile;
+    private final int clickFlushIntervalMillis;
+    private final int clickFlushThreshold;
+    private final int clickCheckpointIntervalSeconds;
+    private final int loadParallelism;
+    private final int loadChunkSizeKb;
+    private final String persistenceMode;
+    private final int journalCompactThreshold;
+    private final String persistenceDurability;
+    private final int groupCommitWindowMillis;
+    private final int groupCommitMaxBatch;
+    private final boolean httpEnabled;
+    private final int httpPort;
+    private final int httpThreads;
+    private final int httpBacklog;
+    private final int hotCacheCapacity;
+    private final boolean dedupEnabled;
+    private final boolean lookupFilterEnabled;
+    private final double lookupFilterFalsePositiveRate;
+    private final int lookupFilterRebuildMinutes;
+    private final int storageShards;
+    private final boolean trafficEnabled;
+    private final int trafficRingCapacity;
+    private final int trafficMaxLinks;
+    private final boolean topEnabled;
+    private final int topCapacity;
+    private final int topSketchWidth;
+    private final int topDecaySeconds;
+    private final int topMetricsSize;
+    private final boolean rateLimitEnabled;
+    private final int rateLimitCreatePerSecond;
+    private final int rateLimitCreateBurst;
+    private final int rateLimitRedirectPerSecond;
+    private final int rateLimitRedirectBurst;
+    private final int rateLimitIdleSeconds;
+
+    ConfigSnapshot(Properties properties) {
+        Map<String, String> merged = new TreeMap<>();
+        defaults().forEach((key, value) -> merged.put(key.toString(), value.toString()));
+        properties.forEach((key, value) -> merged.put(key.toString(), value.toString().trim()));
+        this.values = Collections.unmodifiableMap(merged);
+
+        this.defaultTtlHours = intValue("link.default.ttl.hours");
+        this.defaultMaxClicks = intValue("link.default.max.clicks");
+        this.cleanupIntervalMinutes = intValue("cleanup.interval.minutes");
+        this.expiryPrecisionSeconds = intValue("cleanup.expiry.precision.seconds");
+        this.shortCodeLength = intValue("shortcode.length");
+        this.shortCodeGenerator = values.get("shortcode.generator");
+        this.shortCodeCounterFile = values.get("shortcode.counter.file");
+        this.shortCodeCounterSeed = optionalLongValue("shortcode.counter.seed");
+        this.shortCodeCounterBlockSize = intValue("shortcode.counter.block.size");
+        this.shortLinkDomain = values.get("shortlink.domain");
+        this.urlMaxLength = intValue("url.max.length");
+        this.storageFile = values.get("storage.file");
+        this.journalFile = values.get("storage.journal.file");
+        this.binaryStorageFile = values.get("storage.binary.file");
+        this.storageFormat = values.get("storage.format");
+        this.storageEngine = values.get("storage.engine");
+        this.offHeapChunkSizeMb = intValue("storage.offheap.chunk.mb");
+        this.clickJournalFile = values.get("storage.click.journal.file");
+        this.clickFlushIntervalMillis = intValue("click.flush.interval.ms");
+        this.clickFlushThreshold = intValue("click.flush.threshold");
+        this.clickCheckpointIntervalSeconds = intValue("click.checkpoint.interval.seconds");
+        this.loadParallelism = intValue("storage.load.parallelism");
+        this.loadChunkSizeKb = intValue("storage.load.chunk.kb");
+        this.persistenceMode = values.get("persistence.mode");
+        this.journalCompactThreshold = intValue("persistence.journal.compact.threshold");
+        this.persistenceDurability = values.get("persistence.durability");
+        this.groupCommitWindowMillis = intValue("persistence.group.commit.window.ms");
+        this.groupCommitMaxBatch = intValue("persistence.group.commit.max.batch");
+        this.httpEnabled = Boolean.parseBoolean(values.get("http.enabled"));
+        this.httpPort = intValue("http.port");
+        this.httpThreads = intValue("http.threads");
+        this.httpBacklog = intValue("http.backlog");
+        this.hotCacheCapacity = intValue("cache.hot.capacity");
+        this.dedupEnabled = Boolean.parseBoolean(values.get("link.dedup.enabled"));
+        this.lookupFilterEnabled = Boolean.parseBoolean(values.get("lookup.filter.enabled"));
+        this.lookupFilterFalsePositiveRate = doubleValue("lookup.filter.fpp");
+        this.lookupFilterRebuildMinutes = intValue("lookup.filter.rebuild.minutes");
+        this.storageShards = intValue("storage.shards");
+        this.trafficEnabled = Boolean.parseBoolean(values.get("traffic.enabled"));
+        this.trafficRingCapacity = intValue("traffic.ring.capacity");
+        this.trafficMaxLinks = intValue("traffic.max.links");
+        this.topEnabled = Boolean.parseBoolean(values.get("top.enabled"));
+        this.topCapacity = intValue("top.capacity");
+        this.topSketchWidth = intValue("top.sketch.width");
+        this.topDecaySeconds = intValue("top.decay.seconds");
+        this.topMetricsSize = intValue("top.metrics.size");
+        this.rateLimitEnabled = Boolean.parseBoolean(values.get("ratelimit.enabled"));
+        this.rateLimitCreatePerSecond = intValue("ratelimit.create.per.second");
+        this.rateLimitCreateBurst = intValue("ratelimit.create.burst");
+        this.rateLimitRedirectPerSecond = intValue("ratelimit.redirect.per.second");
+        this.rateLimitRedirectBurst = intValue("ratelimit.redirect.burst");
+        this.rateLimitIdleSeconds = intValue("ratelimit.idle.seconds");
+    }
+
+    static Properties defaults() {
+        Properties defaults = new Properties();
+        defaults.setProperty("link.default.ttl.hours", "24");
+        defaults.setProperty("link.default.max.clicks", "10");
+        defaults.setProperty("cleanup.interval.minutes", "5");
+        defaults.setProperty("cleanup.expiry.precision.seconds", "60");
+        defaults.setProperty("shortcode.length", "8");
+        defaults.setProperty("shortcode.generator", "counter");
+        defaults.setProperty("shortcode.counter.file", "url_shortener_counter.dat");
+        defaults.setProperty("shortcode.counter.seed", "");
+        defaults.setProperty("shortcode.counter.block.size", "1000");
+        defaults.setProperty("shortlink.domain", "localhost");
+        defaults.setProperty("url.max.length", "2048");
+        defaults.setProperty("storage.file", "url_shortener_links.txt");
+        defaults.setProperty("storage.journal.file", "url_shortener_links.log");
+        defaults.setProperty("storage.binary.file", "url_shortener_links.bin");
+        defaults.setProperty("storage.format", "text");
+        defaults.setProperty("storage.engine", "heap");
+        defaults.setProperty("storage.offheap.chunk.mb", "64");
+        defaults.setProperty("storage.click.journal.file", "url_shortener_clicks.log");
+        defaults.setProperty("click.flush.interval.ms", "1000");
+        defaults.setProperty("click.flush.threshold", "1000");
+        defaults.setProperty("click.checkpoint.interval.seconds", "300");
+        defaults.setProperty("storage.load.parallelism", "0");
+        defaults.setProperty("storage.load.chunk.kb", "4096");
+        defaults.setProperty("persistence.mode", "journal");
+        defaults.setProperty("persistence.journal.compact.threshold", "10000");
+        defaults.setProperty("persistence.durability", "group-commit");
+        defaults.setProperty("persistence.group.commit.window.ms", "2");
+        defaults.setProperty("persistence.group.commit.max.batch", "512");
+        defaults.setProperty("http.enabled", "false");
+        defaults.setProperty("http.port", "8080");
+        defaults.setProperty("http.threads", "0");
+        defaults.setProperty("http.backlog", "0");
+        defaults.setProperty("cache.hot.capacity", "10000");
+        defaults.setProperty("link.dedup.enabled", "false");
+        defaults.setProperty("lookup.filter.enabled", "true");
+        defaults.setProperty("lookup.filter.fpp", "0.01");
+        defaults.setProperty("lookup.filter.rebuild.minutes", "60");
+        defaults.setProperty("storage.shards", "1");
+        defaults.setProperty("traffic.enabled", "true");
+        defaults.setProperty("traffic.ring.capacity", "65536");
+        defaults.setProperty("traffic.max.links", "10000");
+        defaults.setProperty("top.enabled", "true");
+        defaults.setProperty("top.capacity", "100");
+        defaults.setProperty("top.sketch.width", "4096");
+        defaults.setProperty("top.decay.seconds", "60");
+        defaults.setProperty("top.metrics.size", "10");
+        defaults.setProperty("ratelimit.enabled", "true");
+        defaults.setProperty("ratelimit.create.per.second", "5");
+        defaults.setProperty("ratelimit.create.burst", "20");
+        defaults.setProperty("ratelimit.redirect.per.second", "10");
+        defaults.setProperty("ratelimit.redirect.burst", "20");
+        defaults.setProperty("ratelimit.idle.seconds", "300");
+        return defaults;
+    }
+
+    // Для свойства без значения по умолчанию (не из списка defaults) возвращается 0
+    int intValue(String key) {
+        try {
+            return Integer.parseInt(values.get(key));
+        } catch (NumberFormatException e) {
+            System.err.println("Неверный формат числа для свойства '" + key + "'. Используется значение по умолчанию.");
+            String fallback = defaults().getProperty(key);
+            return fallback != null ? Integer.parseInt(fallback) : 0;
+        }
+    }
+
+    private Long optionalLongValue(String key) {
+        String value = values.get(key);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Неверный формат числа для свойства '" + key + "'. Свойство не используется.");
+            return null;
+        }
+    }
+
+    private double doubleValue(String key) {
+        try {
+            return Double.parseDouble(values.get(key));
+        } catch (NumberFormatException e) {
+            System.err.println("Неверный формат числа для свойства '" + key + "'. Используется значение по умолчанию.");
+            return Double.parseDouble(defaults().getProperty(key));
+        }
+    }
+
+    public String getProperty(String key) {
+        return values.get(key);
+    }
+
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    public int getDefaultTtlHours() { return defaultTtlHours; }
+    public int getDefaultMaxClicks() { return defaultMaxClicks; }
+    public int getCleanupIntervalMinutes() { return cleanupIntervalMinutes; }
+    public int getExpiryPrecisionSeconds() { return expiryPrecisionSeconds; }
+    public int getShortCodeLength() { return shortCodeLength; }
+    public String getShortCodeGenerator() { return shortCodeGenerator; }
+    public String getShortCodeCounterFile() { return shortCodeCounterFile; }
+    public Long getShortCodeCounterSeed() { return shortCodeCounterSeed; }
+    public int getShortCodeCounterBlockSize() { return shortCodeCounterBlockSize; }
+    public String getShortLinkDomain() { return shortLinkDomain; }
+    public int getUrlMaxLength() { return urlMaxLength; }
+    public String getStorageFile() { return storageFile; }
+    public String getJournalFile() { return journalFile; }
+    public String getBinaryStorageFile() { return binaryStorageFile; }
+    public String getStorageFormat() { return storageFormat; }
+    public String getStorageEngine() { return storageEngine; }
+    public int getOffHeapChunkSizeMb() { return offHeapChunkSizeMb; }
+    public String getClickJournalFile() { return clickJournalFile; }
+    public int getClickFlushIntervalMillis() { return clickFlushIntervalMillis; }
+    public int getClickFlushThreshold() { return clickFlushThreshold; }
+    public int getClickCheckpointIntervalSeconds() { return clickCheckpointIntervalSeconds; }
+    public int getLoadParallelism() { return loadParallelism; }
+    public int getLoadChunkSizeKb() { return loadChunkSizeKb; }
+    public String getPersistenceMode() { return persistenceMode; }
+    public int getJournalCompactThreshold() { return journalCompactThreshold; }
+    public String getPersistenceDurability() { return persistenceDurability; }
+    public int getGroupCommitWindowMillis() { return groupCommitWindowMillis; }
+    public int getGroupCommitMaxBatch() { return groupCommitMaxBatch; }
+    public boolean isHttpEnabled() { return httpEnabled; }
+    public int getHttpPort() { return httpPort; }
+    public int getHttpThreads() { return httpThreads; }
+    public int getHttpBacklog() { return httpBacklog; }
+    public int getHotCacheCapacity() { return hotCacheCapacity; }
+    public boolean isDedupEnabled() { return dedupEnabled; }
+    public boolean isLookupFilterEnabled() { return lookupFilterEnabled; }
+    public double getLookupFilterFalsePositiveRate() { return lookupFilterFalsePositiveRate; }
+    public int getLookupFilterRebuildMinutes() { return lookupFilterRebuildMinutes; }
+    public int getStorageShards() { return storageShards; }
+    public boolean isTrafficEnabled() { return trafficEnabled; }
+    public int getTrafficRingCapacity() { return trafficRingCapacity; }
+    public int getTrafficMaxLinks() { return trafficMaxLinks; }
+    public boolean isTopEnabled() { return topEnabled; }
+    public int getTopCapacity() { return topCapacity; }
+    public int getTopSketchWidth() { return topSketchWidth; }
+    public int getTopDecaySeconds() { return topDecaySeconds; }
+    public int getTopMetricsSize() { return topMetricsSize; }
+    public boolean isRateLimitEnabled() { return rateLimitEnabled; }
+    public int getRateLimitCreatePerSecond() { return rateLimitCreatePerSecond; }
+    public int getRateLimitCreateBurst() { return rateLimitCreateBurst; }
+    public int getRateLimitRedirectPerSecond() { return rateLimitRedirectPerSecond; }
+    public int getRateLimitRedirectBurst() { return rateLimitRedirectBurst; }
+    public int getRateLimitIdleSeconds() { return rateLimitIdleSeconds; }
+}
@@ -0,0 +1,10 @@
+package com.urlshortener.core.exception;
+
+// Превышена частота запросов. Исключение без стека: отказ по лимиту должен стоить дешево
+public class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,138 @@
+package com.urlshortener.core.index;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Индекс повторных сокращений: (владелец, 64-битный хеш URL) -> код ссылки.
+// Хранится только хеш, поэтому при совпадении вызывающий код сверяет URL самой ссылки
+public class DedupIndex {
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentHashMap<Key, String> codes = new ConcurrentHashMap<>();
+    // Поиск повторной ссылки и вставка новой выполняются под блокировкой пары (владелец, URL).
+    // Коды одинаковых одновременных запросов могут попасть в разные шарды, поэтому блокировки
+    // шарда для этого недостаточно. Берется раньше блокировки шарда
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public DedupIndex() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public String find(UUID ownerId, String originalUrl) {
+        return codes.get(new Key(ownerId.getMostSignificantBits(), ownerId.getLeastSignificantBits(),
+                hash(originalUrl)));
+    }
+
+    // Новая ссылка вытесняет прежнюю с тем же URL: прежняя к этому моменту неактивна
+    public void add(ShortLink link) {
+        codes.put(keyOf(link), link.getShortCode());
+    }
+
+    // Запись удаляется, только если указывает на эту ссылку
+    public void remove(ShortLink link) {
+        codes.remove(keyOf(link), link.getShortCode());
+    }
+
+    public ReentrantLock lockFor(UUID ownerId, String originalUrl) {
+        return locks[stripe(ownerId, originalUrl)];
+    }
+
+    // Блокировки пакета URL одного владельца; берутся по возрастанию номера, чтобы не было взаимоблокировок
+    public BitSet stripesOf(UUID ownerId, Collection<String> originalUrls) {
+        BitSet stripes = new BitSet(LOCK_STRIPES);
+        for (String originalUrl : originalUrls) {
+            if (originalUrl != null) {
+                stripes.set(stripe(ownerId, originalUrl));
+            }
+        }
+        return stripes;
+    }
+
+    // Блокировки пакета готовых ссылок разных владельцев (загрузка из файла)
+    public BitSet stripesOfLinks(Collection<ShortLink> links) {
+        BitSet stripes = new BitSet(LOCK_STRIPES);
+        for (ShortLink link : links) {
+            stripes.set(stripe(link.getOwnerId(), link.getOriginalUrl()));
+        }
+        return stripes;
+    }
+
+    public void lock(BitSet stripes) {
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            locks[i].lock();
+        }
+    }
+
+    public void unlock(BitSet stripes) {
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            locks[i].unlock();
+        }
+    }
+
+    private static int stripe(UUID ownerId, String originalUrl) {
+        long mixed = hash(originalUrl) ^ ownerId.getMostSignificantBits() ^ ownerId.getLeastSignificantBits();
+        return (int) ((mixed ^ (mixed >>> 32)) & (LOCK_STRIPES - 1));
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    public void clear() {
+        codes.clear();
+    }
+
+    private static Key keyOf(ShortLink link) {
+        return new Key(link.getOwnerMostSigBits(), link.getOwnerLeastSigBits(), hash(link.getOriginalUrl()));
+    }
+
+    // FNV-1a по символам с финальным перемешиванием битов
+    static long hash(String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Key {
+        private final long ownerMostSigBits;
+        private final long ownerLeastSigBits;
+        private final long urlHash;
+
+        private Key(long ownerMostSigBits, long ownerLeastSigBits, long urlHash) {
+            this.ownerMostSigBits = ownerMostSigBits;
+            this.ownerLeastSigBits = ownerLeastSigBits;
+            this.urlHash = urlHash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return urlHash == key.urlHash
+                    && ownerMostSigBits == key.ownerMostSigBits
+                    && ownerLeastSigBits == key.ownerLeastSigBits;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(urlHash ^ ownerMostSigBits * 31 ^ ownerLeastSigBits);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.urlshortener.core.index;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Очередь ссылок по моменту истечения. Срок округляется вверх до точности precisionSeconds,
+// поэтому ссылка никогда не попадает в выборку раньше своего expiresAt.
+// Выборка просроченных стоит O(k log n), где k - число истекших ссылок.
+public class ExpiryIndex {
+    private final long precisionSeconds;
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    public ExpiryIndex(long precisionSeconds) {
+        this.precisionSeconds = Math.max(1, precisionSeconds);
+    }
+
+    public void add(String shortCode, LocalDateTime expiresAt) {
+        entries.add(new Entry(deadline(expiresAt), shortCode));
+    }
+
+    public void remove(String shortCode, LocalDateTime expiresAt) {
+        entries.remove(new Entry(deadline(expiresAt), shortCode));
+    }
+
+    public void move(String shortCode, LocalDateTime oldExpiresAt, LocalDateTime newExpiresAt) {
+        long oldDeadline = deadline(oldExpiresAt);
+        long newDeadline = deadline(newExpiresAt);
+        if (oldDeadline == newDeadline) {
+            return;
+        }
+        entries.add(new Entry(newDeadline, shortCode));
+        entries.remove(new Entry(oldDeadline, shortCode));
+    }
+
+    // Извлекает коды, срок которых наступил к моменту now
+    public List<String> pollDue(LocalDateTime now) {
+        long nowSeconds = now.toEpochSecond(ZoneOffset.UTC);
+        List<String> due = new ArrayList<>();
+
+        while (true) {
+            Entry first = firstOrNull();
+            if (first == null || first.deadline > nowSeconds) {
+                return due;
+            }
+            if (entries.remove(first)) {
+                due.add(first.shortCode);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private Entry firstOrNull() {
+        try {
+            return entries.first();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    private long deadline(LocalDateTime expiresAt) {
+        long seconds = expiresAt.toEpochSecond(ZoneOffset.UTC);
+        if (expiresAt.getNano() > 0) {
+            seconds++;
+        }
+        return Math.floorDiv(seconds + precisionSeconds - 1, precisionSeconds) * precisionSeconds;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long deadline;
+        private final String shortCode;
+
+        private Entry(long deadline, String shortCode) {
+            this.deadline = deadline;
+            this.shortCode = shortCode;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byDeadline = Long.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : shortCode.compareTo(other.shortCode);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Entry)) {
+                return false;
+            }
+            Entry entry = (Entry) other;
+            return deadline == entry.deadline && shortCode.equals(entry.shortCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(deadline) * 31 + shortCode.hashCode();
+        }
+    }
+}
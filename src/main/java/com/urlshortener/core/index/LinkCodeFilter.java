@@ -0,0 +1,65 @@
+package com.urlshortener.core.index;
+
+import com.urlshortener.core.model.ShortLink;
+
+// Фильтр существующих коротких кодов: отрицательный ответ означает, что кода точно нет,
+// и хранилище можно не спрашивать. Удаленные коды остаются в фильтре до перестроения.
+// Код добавляется после записи ссылки в хранилище, поэтому перестроение его не теряет:
+// либо обход хранилища увидит ссылку, либо добавление попадет и в новый фильтр
+public class LinkCodeFilter {
+    private final double falsePositiveRate;
+    private volatile ScalableBloomFilter current;
+    // Строящийся фильтр; не null только во время перестроения
+    private volatile ScalableBloomFilter pending;
+
+    public LinkCodeFilter(Iterable<ShortLink> links, int expectedSize, double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = build(links, expectedSize);
+    }
+
+    // pending читается раньше current: rebuild публикует current до сброса pending, поэтому
+    // если строящийся фильтр уже сброшен, следующее чтение current вернет новый фильтр
+    public void add(String shortCode) {
+        ScalableBloomFilter building = pending;
+        if (building != null) {
+            building.add(shortCode);
+        }
+        current.add(shortCode);
+    }
+
+    public boolean mightContain(String shortCode) {
+        return current.mightContain(shortCode);
+    }
+
+    // Строит фильтр заново по живым ссылкам, чтобы сбросить удаленные коды
+    public synchronized void rebuild(Iterable<ShortLink> links, int expectedSize) {
+        ScalableBloomFilter rebuilt = new ScalableBloomFilter(expectedSize, falsePositiveRate);
+        pending = rebuilt;
+        for (ShortLink link : links) {
+            rebuilt.add(link.getShortCode());
+        }
+        current = rebuilt;
+        pending = null;
+    }
+
+    public long getInsertions() {
+        return current.getInsertions();
+    }
+
+    public long getSizeBytes() {
+        ScalableBloomFilter building = pending;
+        return current.getSizeBytes() + (building != null ? building.getSizeBytes() : 0);
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        return current.getExpectedFalsePositiveRate();
+    }
+
+    private ScalableBloomFilter build(Iterable<ShortLink> links, int expectedSize) {
+        ScalableBloomFilter filter = new ScalableBloomFilter(expectedSize, falsePositiveRate);
+        for (ShortLink link : links) {
+            filter.add(link.getShortCode());
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,44 @@
+package com.urlshortener.core.index;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Вторичный индекс владелец -> коды его ссылок
+public class OwnerIndex {
+    private final ConcurrentHashMap<UUID, Set<String>> codesByOwner = new ConcurrentHashMap<>();
+
+    public void add(UUID ownerId, String shortCode) {
+        codesByOwner.compute(ownerId, (owner, codes) -> {
+            Set<String> result = codes != null ? codes : ConcurrentHashMap.newKeySet();
+            result.add(shortCode);
+            return result;
+        });
+    }
+
+    public void remove(UUID ownerId, String shortCode) {
+        codesByOwner.computeIfPresent(ownerId, (owner, codes) -> {
+            codes.remove(shortCode);
+            return codes.isEmpty() ? null : codes;
+        });
+    }
+
+    public Set<String> getCodes(UUID ownerId) {
+        Set<String> codes = codesByOwner.get(ownerId);
+        return codes != null ? Collections.unmodifiableSet(codes) : Collections.emptySet();
+    }
+
+    public int count(UUID ownerId) {
+        Set<String> codes = codesByOwner.get(ownerId);
+        return codes != null ? codes.size() : 0;
+    }
+
+    public Set<UUID> getOwners() {
+        return Collections.unmodifiableSet(codesByOwner.keySet());
+    }
+
+    public void clear() {
+        codesByOwner.clear();
+    }
+}
@@ -0,0 +1,146 @@
+package com.urlshortener.core.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Масштабируемый фильтр Блума из секционированных ступеней. В ступени каждая из k хеш-функций
+// пишет в свою секцию битов, поэтому биты разных функций не пересекаются. Когда ступень набирает
+// свою емкость, добавляется следующая вдвое большая с вдвое меньшей вероятностью ложного
+// срабатывания: суммарная вероятность остается не выше заданной при любом числе элементов.
+// Добавление и проверка не блокируют; удаление не поддерживается
+public class ScalableBloomFilter {
+    private static final double LN2_SQUARED = Math.log(2) * Math.log(2);
+    private static final int MIN_CAPACITY = 1024;
+
+    private final double falsePositiveRate;
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        this.falsePositiveRate = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        this.stages = new Stage[]{new Stage(Math.max(MIN_CAPACITY, expectedInsertions), this.falsePositiveRate / 2)};
+    }
+
+    public void add(String value) {
+        long hash = DedupIndex.hash(value);
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.add(hash) && last.isFull()) {
+            grow(last);
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = DedupIndex.hash(value);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Добавленные элементы, включая повторы и уже удаленные из хранилища коды
+    public long getInsertions() {
+        long insertions = 0;
+        for (Stage stage : stages) {
+            insertions += stage.count.get();
+        }
+        return insertions;
+    }
+
+    public long getSizeBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    // Оценка по заполнению ступеней: 1 - П(1 - p_i), где p_i = (1 - e^(-n_i / m_i))^k
+    public double getExpectedFalsePositiveRate() {
+        double missAll = 1;
+        for (Stage stage : stages) {
+            missAll *= 1 - stage.expectedFalsePositiveRate();
+        }
+        return 1 - missAll;
+    }
+
+    public double getTargetFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    private synchronized void grow(Stage full) {
+        Stage[] current = stages;
+        if (current[current.length - 1] != full) {
+            return;
+        }
+
+        Stage[] grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = new Stage(full.capacity * 2, full.falsePositiveRate / 2);
+        stages = grown;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final int hashFunctions;
+        private final int partitionBits;
+        private final long partitionMask;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            this.hashFunctions = Math.max(1, (int) Math.ceil(-Math.log(falsePositiveRate) / Math.log(2)));
+
+            long totalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / LN2_SQUARED);
+            long perPartition = Math.max(Long.SIZE, totalBits / hashFunctions);
+            this.partitionBits = Math.min(30, 64 - Long.numberOfLeadingZeros(perPartition - 1));
+            this.partitionMask = (1L << partitionBits) - 1;
+            this.bits = new AtomicLongArray((int) (((long) hashFunctions << partitionBits) / Long.SIZE));
+        }
+
+        // Возвращает true, если был установлен хотя бы один новый бит
+        boolean add(long hash) {
+            boolean changed = false;
+            long h1 = hash;
+            long h2 = (hash >>> 32) | (hash << 32) | 1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = ((long) i << partitionBits) + ((h1 + i * h2) & partitionMask);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((bits.get(word) & mask) == 0) {
+                    bits.accumulateAndGet(word, mask, (value, m) -> value | m);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                count.incrementAndGet();
+            }
+            return changed;
+        }
+
+        boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = (hash >>> 32) | (hash << 32) | 1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = ((long) i << partitionBits) + ((h1 + i * h2) & partitionMask);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        double expectedFalsePositiveRate() {
+            double fill = 1 - Math.exp(-(double) count.get() / (1L << partitionBits));
+            return Math.pow(fill, hashFunctions);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.urlshortener.core.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Реестр метрик приложения: гистограммы задержек, счетчики и показатели, снимаемые при чтении.
+// Метрика с меткой регистрируется как серия внутри семейства: redirects_total{status="found"}.
+// Запись в метрики не блокирует, регистрация - один раз при создании компонента
+public final class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    private static final class Holder {
+        private static final Metrics INSTANCE = new Metrics();
+    }
+
+    public static Metrics getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public LatencyHistogram histogram(String name, String help) {
+        return histogram(name, help, null, null);
+    }
+
+    public LatencyHistogram histogram(String name, String help, String label, String value) {
+        return (LatencyHistogram) family(name, help, Type.SUMMARY)
+                .series.computeIfAbsent(labels(label, value), key -> new LatencyHistogram());
+    }
+
+    public LongAdder counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    public LongAdder counter(String name, String help, String label, String value) {
+        return (LongAdder) family(name, help, Type.COUNTER)
+                .series.computeIfAbsent(labels(label, value), key -> new LongAdder());
+    }
+
+    // Показатели читаются из компонента при каждом выводе. Повторная регистрация
+    // под тем же именем заменяет источник, например после пересоздания сервиса
+    public void gauge(String name, String help, LongSupplier source) {
+        family(name, help, Type.GAUGE).series.put("", source);
+    }
+
+    // Дробный показатель, например доля или вероятность
+    public void ratioGauge(String name, String help, DoubleSupplier source) {
+        family(name, help, Type.GAUGE).series.put("", source);
+    }
+
+    // Набор серий, который меняется со временем, например список самых посещаемых кодов:
+    // при каждом выводе source возвращает значение метки -> значение показателя
+    public void labeledGauge(String name, String help, String label, Supplier<Map<String, Long>> source) {
+        family(name, help, Type.GAUGE).series.put("", new LabeledSource(label, source));
+    }
+
+    // Монотонный счетчик, который уже ведет сам компонент
+    public void counterFunction(String name, String help, LongSupplier source) {
+        family(name, help, Type.COUNTER).series.put("", source);
+    }
+
+    // Текстовый формат экспозиции Prometheus 0.0.4. Задержки выводятся в секундах
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+
+            out.append("# HELP ").append(name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type.prometheusName).append('\n');
+
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                String labels = series.getKey();
+                Object metric = series.getValue();
+
+                if (metric instanceof LatencyHistogram) {
+                    LatencyHistogram.Snapshot snapshot = ((LatencyHistogram) metric).snapshot();
+                    for (double quantile : QUANTILES) {
+                        String quantileLabel = "quantile=\"" + quantile + "\"";
+                        out.append(name).append('{')
+                                .append(labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel)
+                                .append("} ").append(seconds(snapshot.getValueAtQuantile(quantile))).append('\n');
+                    }
+                    appendSample(out, name + "_sum", labels, seconds(snapshot.getTotalNanos()));
+                    appendSample(out, name + "_count", labels, String.valueOf(snapshot.getCount()));
+                } else if (metric instanceof LabeledSource) {
+                    for (Map.Entry<String, String> sample : ((LabeledSource) metric).samples().entrySet()) {
+                        appendSample(out, name, sample.getKey(), sample.getValue());
+                    }
+                } else {
+                    appendSample(out, name, labels, valueOf(metric));
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    // Отчет для консоли: по строке на серию
+    public String toReport() {
+        StringBuilder out = new StringBuilder(2048);
+
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                String title = series.getKey().isEmpty() ? name : name + "{" + series.getKey() + "}";
+                Object metric = series.getValue();
+
+                if (metric instanceof LatencyHistogram) {
+                    LatencyHistogram.Snapshot snapshot = ((LatencyHistogram) metric).snapshot();
+                    out.append(String.format("  %-58s n=%d", title, snapshot.getCount()));
+                    if (snapshot.getCount() > 0) {
+                        out.append(String.format(" сред=%s p50=%s p99=%s p99.9=%s макс=%s",
+                                LatencyHistogram.Snapshot.format(snapshot.getMeanNanos()),
+                                LatencyHistogram.Snapshot.format(snapshot.getValueAtQuantile(0.5)),
+                                LatencyHistogram.Snapshot.format(snapshot.getValueAtQuantile(0.99)),
+                                LatencyHistogram.Snapshot.format(snapshot.getValueAtQuantile(0.999)),
+                                LatencyHistogram.Snapshot.format(snapshot.getMaxNanos())));
+                    }
+                    out.append('\n');
+                } else if (metric instanceof LabeledSource) {
+                    for (Map.Entry<String, String> sample : ((LabeledSource) metric).samples().entrySet()) {
+                        out.append(String.format("  %-58s %s%n", name + "{" + sample.getKey() + "}", sample.getValue()));
+                    }
+                } else {
+                    out.append(String.format("  %-58s %s%n", title, valueOf(metric)));
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Метрика " + name + " уже зарегистрирована с другим типом");
+        }
+        return family;
+    }
+
+    private static String labels(String label, String value) {
+        return label == null ? "" : label + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String valueOf(Object metric) {
+        if (metric instanceof LongAdder) {
+            return String.valueOf(((LongAdder) metric).sum());
+        }
+        if (metric instanceof DoubleSupplier) {
+            return String.format(Locale.ROOT, "%.6g", ((DoubleSupplier) metric).getAsDouble());
+        }
+        return String.valueOf(((LongSupplier) metric).getAsLong());
+    }
+
+    private static void appendSample(StringBuilder out, String name, String labels, String value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static final class LabeledSource {
+        private final String label;
+        private final Supplier<Map<String, Long>> source;
+
+        private LabeledSource(String label, Supplier<Map<String, Long>> source) {
+            this.label = label;
+            this.source = source;
+        }
+
+        // Метки в порядке, заданном источником
+        Map<String, String> samples() {
+            Map<String, String> samples = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : source.get().entrySet()) {
+                samples.put(labels(label, entry.getKey()), String.valueOf(entry.getValue()));
+            }
+            return samples;
+        }
+    }
+
+    private enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        SUMMARY("summary");
+
+        private final String prometheusName;
+
+        Type(String prometheusName) {
+            this.prometheusName = prometheusName;
+        }
+    }
+
+    private static final class Family {
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        private Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -1,41 +1,245 @@
 package com.urlshortener.core.model;
 
+import com.urlshortener.core.shortcode.Base62;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
 public class ShortLink {
-    private final String shortCode;
+    // Переходы, лимит и активность упакованы в одно long и меняются через CAS:
+    // биты 0-30 - переходы, 31-61 - лимит, 62 - признак активности
+    private static final long COUNTER_MASK = 0x7FFF_FFFFL;
+    private static final int MAX_CLICKS_SHIFT = 31;
+    private static final long ACTIVE_BIT = 1L << 62;
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(ShortLink.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public enum ClickResult {
+        RESERVED,
+        INACTIVE,
+        LIMIT_REACHED
+    }
+
+    // Код из base62-символов длиной до 10 хранится числом: биты 0-59 - значение, 60-63 - длина.
+    // Остальные коды хранятся строкой, а packedCode равен NOT_PACKED
+    private static final long NOT_PACKED = 0;
+    private static final int CODE_LENGTH_SHIFT = 60;
+    private static final long CODE_VALUE_MASK = (1L << CODE_LENGTH_SHIFT) - 1;
+
+    private final long packedCode;
+    // Для упакованного кода заполняется при первом вызове getShortCode. Гонка безопасна:
+    // потоки в худшем случае декодируют одинаковую строку по разу
+    private String shortCode;
     private final String originalUrl;
-    private final UUID ownerId;
-    private final LocalDateTime createdAt;
-    private LocalDateTime expiresAt;
-    private int maxClicks;
-    private int currentClicks;
-    private boolean isActive;
+    private final long ownerMostSigBits;
+    private final long ownerLeastSigBits;
+    private final long createdAtEpochSecond;
+    private volatile long expiresAtEpochSecond;
+    private volatile long state;
 
     public ShortLink(String shortCode, String originalUrl, UUID ownerId,
                      LocalDateTime createdAt, LocalDateTime expiresAt,
                      int maxClicks, int currentClicks, boolean isActive) {
-        this.shortCode = shortCode;
+        this(shortCode, originalUrl,
+                ownerId.getMostSignificantBits(), ownerId.getLeastSignificantBits(),
+                toEpochSecond(createdAt), toEpochSecond(expiresAt),
+                maxClicks, currentClicks, isActive);
+    }
+
+    // Время - секунды эпохи для LocalDateTime, отсчитанные как UTC; доли секунды не хранятся
+    public ShortLink(String shortCode, String originalUrl, long ownerMostSigBits, long ownerLeastSigBits,
+                     long createdAtEpochSecond, long expiresAtEpochSecond,
+                     int maxClicks, int currentClicks, boolean isActive) {
+        if (maxClicks < 0 || currentClicks < 0) {
+            throw new IllegalArgumentException("Число переходов не может быть отрицательным");
+        }
+
+        this.packedCode = packCode(shortCode);
+        this.shortCode = packedCode == NOT_PACKED ? shortCode : null;
         this.originalUrl = originalUrl;
-        this.ownerId = ownerId;
-        this.createdAt = createdAt;
-        this.expiresAt = expiresAt;
-        this.maxClicks = maxClicks;
-        this.currentClicks = currentClicks;
-        this.isActive = isActive;
+        this.ownerMostSigBits = ownerMostSigBits;
+        this.ownerLeastSigBits = ownerLeastSigBits;
+        this.createdAtEpochSecond = createdAtEpochSecond;
+        this.expiresAtEpochSecond = expiresAtEpochSecond;
+        this.state = pack(currentClicks, maxClicks, isActive);
+    }
+
+    public String getShortCode() {
+        String code = shortCode;
+        if (code == null) {
+            code = Base62.encode(packedCode & CODE_VALUE_MASK, (int) (packedCode >>> CODE_LENGTH_SHIFT));
+            shortCode = code;
+        }
+        return code;
     }
 
-    public String getShortCode() { return shortCode; }
     public String getOriginalUrl() { return originalUrl; }
-    public UUID getOwnerId() { return ownerId; }
-    public LocalDateTime getCreatedAt() { return createdAt; }
-    public LocalDateTime getExpiresAt() { return expiresAt; }
-    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
-    public int getMaxClicks() { return maxClicks; }
-    public void setMaxClicks(int maxClicks) { this.maxClicks = maxClicks; }
-    public int getCurrentClicks() { return currentClicks; }
-    public void setCurrentClicks(int currentClicks) { this.currentClicks = currentClicks; }
-    public boolean isActive() { return isActive; }
-    public void setActive(boolean active) { isActive = active; }
+    public UUID getOwnerId() { return new UUID(ownerMostSigBits, ownerLeastSigBits); }
+    public long getOwnerMostSigBits() { return ownerMostSigBits; }
+    public long getOwnerLeastSigBits() { return ownerLeastSigBits; }
+    public LocalDateTime getCreatedAt() { return fromEpochSecond(getCreatedAtEpochSecond()); }
+    public LocalDateTime getExpiresAt() { return fromEpochSecond(getExpiresAtEpochSecond()); }
+    public void setExpiresAt(LocalDateTime expiresAt) { setExpiresAtEpochSecond(toEpochSecond(expiresAt)); }
+    public long getCreatedAtEpochSecond() { return createdAtEpochSecond; }
+    public long getExpiresAtEpochSecond() { return expiresAtEpochSecond; }
+    public void setExpiresAtEpochSecond(long expiresAtEpochSecond) { this.expiresAtEpochSecond = expiresAtEpochSecond; }
+
+    // Сравнение владельца без создания UUID
+    public boolean isOwnedBy(UUID ownerId) {
+        return ownerId.getMostSignificantBits() == ownerMostSigBits
+                && ownerId.getLeastSignificantBits() == ownerLeastSigBits;
+    }
+
+    public int getMaxClicks() { return maxClicks(loadState()); }
+    public int getCurrentClicks() { return clicks(loadState()); }
+    public boolean isActive() { return active(loadState()); }
+    public boolean isLimitReached() { return limitReached(loadState()); }
+
+    public void setMaxClicks(int maxClicks) {
+        if (maxClicks < 0) {
+            throw new IllegalArgumentException("Лимит переходов не может быть отрицательным");
+        }
+
+        long current;
+        do {
+            current = loadState();
+        } while (!compareAndSetState(current, pack(clicks(current), maxClicks, active(current))));
+    }
+
+    public void setCurrentClicks(int currentClicks) {
+        if (currentClicks < 0) {
+            throw new IllegalArgumentException("Число переходов не может быть отрицательным");
+        }
+
+        long current;
+        do {
+            current = loadState();
+        } while (!compareAndSetState(current, pack(currentClicks, maxClicks(current), active(current))));
+    }
+
+    public void setActive(boolean active) {
+        long current;
+        do {
+            current = loadState();
+        } while (!compareAndSetState(current, active ? current | ACTIVE_BIT : current & ~ACTIVE_BIT));
+    }
+
+    public void addClicks(int delta) {
+        long current;
+        long clicks;
+        do {
+            current = loadState();
+            clicks = Math.max(0, Math.min(COUNTER_MASK, (long) clicks(current) + delta));
+        } while (!compareAndSetState(current, pack((int) clicks, maxClicks(current), active(current))));
+    }
+
+    // Атомарно занимает один переход. Последний разрешенный переход сразу деактивирует ссылку,
+    // поэтому при конкурентных переходах лимит не превышается. Ссылка, отключенная
+    // исчерпанием лимита, и дальше отвечает LIMIT_REACHED, а не INACTIVE
+    public ClickResult tryReserveClick() {
+        while (true) {
+            long current = loadState();
+            if (!active(current)) {
+                return limitReached(current) ? ClickResult.LIMIT_REACHED : ClickResult.INACTIVE;
+            }
+
+            int clicks = clicks(current);
+            int maxClicks = maxClicks(current);
+
+            if (clicks >= maxClicks) {
+                if (compareAndSetState(current, current & ~ACTIVE_BIT)) {
+                    return ClickResult.LIMIT_REACHED;
+                }
+                continue;
+            }
+
+            int next = clicks + 1;
+            if (compareAndSetState(current, pack(next, maxClicks, next < maxClicks))) {
+                return ClickResult.RESERVED;
+            }
+        }
+    }
+
+    // Меняет лимит, только если он не меньше уже совершенных переходов
+    public boolean updateMaxClicks(int maxClicks) {
+        while (true) {
+            long current = loadState();
+            if (maxClicks < clicks(current)) {
+                return false;
+            }
+            if (compareAndSetState(current, pack(clicks(current), maxClicks, active(current)))) {
+                return true;
+            }
+        }
+    }
+
+    // Возвращает ссылку в работу, если у нее остались переходы
+    public void reactivateIfClicksLeft() {
+        while (true) {
+            long current = loadState();
+            if (active(current) || clicks(current) >= maxClicks(current)) {
+                return;
+            }
+            if (compareAndSetState(current, current | ACTIVE_BIT)) {
+                return;
+            }
+        }
+    }
+
+    // Хранилища вне кучи переопределяют доступ к состоянию, чтобы оно жило в их памяти
+    protected long loadState() {
+        return state;
+    }
+
+    protected boolean compareAndSetState(long expected, long next) {
+        return STATE.compareAndSet(this, expected, next);
+    }
+
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static long packCode(String shortCode) {
+        long value = Base62.decode(shortCode);
+        if (value < 0) {
+            return NOT_PACKED;
+        }
+        return ((long) shortCode.length() << CODE_LENGTH_SHIFT) | value;
+    }
+
+    protected static long pack(int clicks, int maxClicks, boolean active) {
+        return (clicks & COUNTER_MASK)
+                | ((maxClicks & COUNTER_MASK) << MAX_CLICKS_SHIFT)
+                | (active ? ACTIVE_BIT : 0);
+    }
+
+    private static int clicks(long state) {
+        return (int) (state & COUNTER_MASK);
+    }
+
+    private static int maxClicks(long state) {
+        return (int) ((state >>> MAX_CLICKS_SHIFT) & COUNTER_MASK);
+    }
+
+    private static boolean active(long state) {
+        return (state & ACTIVE_BIT) != 0;
+    }
+
+    private static boolean limitReached(long state) {
+        return clicks(state) >= maxClicks(state);
+    }
 }
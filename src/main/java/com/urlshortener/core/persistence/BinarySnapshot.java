@@ -0,0 +1,199 @@
+package com.urlshortener.core.persistence;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Бинарный снимок ссылок.
+// Заголовок: magic(4) version(4) count(8).
+// Запись: owner msb/lsb(16), created(8), expires(8),
+// max(4), clicks(4), active(1), длина кода(2), длина URL(4), байты кода, байты URL.
+// Время хранится в секундах эпохи по UTC.
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x55534C42;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int FIXED_RECORD_SIZE = 16 + 8 + 8 + 4 + 4 + 1 + 2 + 4;
+    private static final long MAX_WINDOW = 1L << 30;
+
+    private BinarySnapshot() {
+    }
+
+    // Читает снимок через MappedByteBuffer, возвращает число прочитанных ссылок
+    public static long read(Path file, Consumer<ShortLink> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(channel);
+
+            reader.ensure(HEADER_SIZE);
+            int magic = reader.buffer.getInt();
+            int version = reader.buffer.getInt();
+            long count = reader.buffer.getLong();
+
+            if (magic != MAGIC) {
+                throw new IOException("файл " + file + " не является бинарным снимком ссылок");
+            }
+            if (version != VERSION) {
+                throw new IOException("неподдерживаемая версия снимка: " + version);
+            }
+
+            byte[] scratch = new byte[256];
+            for (long i = 0; i < count; i++) {
+                reader.ensure(FIXED_RECORD_SIZE);
+                ByteBuffer buffer = reader.buffer;
+
+                long ownerMostSigBits = buffer.getLong();
+                long ownerLeastSigBits = buffer.getLong();
+                long createdAt = buffer.getLong();
+                long expiresAt = buffer.getLong();
+                int maxClicks = buffer.getInt();
+                int currentClicks = buffer.getInt();
+                boolean active = buffer.get() != 0;
+                int codeLength = Short.toUnsignedInt(buffer.getShort());
+                int urlLength = buffer.getInt();
+
+                reader.ensure(codeLength + urlLength);
+                buffer = reader.buffer;
+
+                if (scratch.length < Math.max(codeLength, urlLength)) {
+                    scratch = new byte[Math.max(codeLength, urlLength)];
+                }
+                buffer.get(scratch, 0, codeLength);
+                String shortCode = new String(scratch, 0, codeLength, StandardCharsets.UTF_8);
+                buffer.get(scratch, 0, urlLength);
+                String originalUrl = new String(scratch, 0, urlLength, StandardCharsets.UTF_8);
+
+                consumer.accept(new ShortLink(shortCode, originalUrl, ownerMostSigBits, ownerLeastSigBits, createdAt, expiresAt,
+                        maxClicks, currentClicks, active));
+            }
+            return count;
+        }
+    }
+
+    public static Writer open(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    public static final class Writer implements AutoCloseable {
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long count;
+
+        private Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+        }
+
+        public void write(ShortLink link) throws IOException {
+            byte[] code = link.getShortCode().getBytes(StandardCharsets.UTF_8);
+            byte[] url = link.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+            if (code.length > 0xFFFF) {
+                throw new IOException("слишком длинный код ссылки: " + link.getShortCode());
+            }
+
+            int recordSize = FIXED_RECORD_SIZE + code.length + url.length;
+            ByteBuffer target = buffer;
+            if (recordSize > buffer.remaining()) {
+                flushBuffer();
+                if (recordSize > buffer.capacity()) {
+                    target = ByteBuffer.allocate(recordSize);
+                }
+            }
+
+            target.putLong(link.getOwnerMostSigBits())
+                    .putLong(link.getOwnerLeastSigBits())
+                    .putLong(link.getCreatedAtEpochSecond())
+                    .putLong(link.getExpiresAtEpochSecond())
+                    .putInt(link.getMaxClicks())
+                    .putInt(link.getCurrentClicks())
+                    .put((byte) (link.isActive() ? 1 : 0))
+                    .putShort((short) code.length)
+                    .putInt(url.length)
+                    .put(code)
+                    .put(url);
+
+            if (target != buffer) {
+                target.flip();
+                writeFully(target);
+            }
+            count++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBuffer();
+
+                ByteBuffer countBuffer = ByteBuffer.allocate(Long.BYTES).putLong(count);
+                countBuffer.flip();
+                while (countBuffer.hasRemaining()) {
+                    channel.write(countBuffer, COUNT_OFFSET + countBuffer.position());
+                }
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    // Отображает файл окнами до 1 ГБ, чтобы читать снимки больше 2 ГБ
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+
+        private MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+
+            long position = windowStart + buffer.position();
+            if (position + bytes > size) {
+                throw new IOException("снимок обрезан на позиции " + position);
+            }
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            long length = Math.min(size - position, MAX_WINDOW);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.urlshortener.core.persistence;
+
+import com.urlshortener.core.metrics.LatencyHistogram;
+import com.urlshortener.core.metrics.Metrics;
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+// Сохранение переходов: приращения копятся в памяти и сбрасываются в небольшой журнал
+// по интервалу или порогу, а при контрольной точке сворачиваются в основное хранилище.
+// Запись журнала: code|приращение|итого. При восстановлении используется итоговое число
+// переходов на момент сброса, поэтому повторное применение записи после контрольной точки
+// ничего не портит. Журнал очищается только после успешного сохранения хранилища.
+// Контрольная точка без новых записей в журнале пропускается: снимок и так актуален по переходам.
+public class ClickJournal {
+    private static final LatencyHistogram FLUSH_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_persist_flush_duration_seconds", "Время сброса изменений на диск", "target", "clicks");
+
+    private final Path journalFile;
+    private final LinkStorage links;
+    private final BooleanSupplier checkpointAction;
+    private final int flushThreshold;
+
+    private final ConcurrentHashMap<String, AtomicInteger> pendingDeltas = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingClicks = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private FileChannel channel;
+    // В журнале есть записи, еще не свернутые в хранилище контрольной точкой
+    private volatile boolean uncheckpointed;
+
+    // checkpointAction сохраняет хранилище и возвращает false, если сохранить не удалось
+    public ClickJournal(Path journalFile, LinkStorage links, BooleanSupplier checkpointAction,
+                        int flushThreshold) {
+        this.journalFile = journalFile;
+        this.links = links;
+        this.checkpointAction = checkpointAction;
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "click-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(long flushIntervalMillis, long checkpointIntervalSeconds) {
+        scheduler.scheduleWithFixedDelay(this::flushSafely,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::checkpointSafely,
+                checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void record(String shortCode) {
+        pendingDeltas.computeIfAbsent(shortCode, code -> new AtomicInteger()).incrementAndGet();
+
+        if (pendingClicks.incrementAndGet() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                // Журнал закрывается, накопленное сохранит контрольная точка в close()
+            }
+        }
+    }
+
+    // Поднимает счетчики до значений из журнала, возвращает число примененных записей
+    public int replay() {
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                if (parts.length != 3) {
+                    System.err.println("Пропущена некорректная запись журнала переходов: " + line);
+                    continue;
+                }
+
+                uncheckpointed = true;
+                try {
+                    ShortLink link = links.get(parts[0]);
+                    int clicks = Integer.parseInt(parts[2]);
+                    if (link != null && clicks > link.getCurrentClicks()) {
+                        link.addClicks(clicks - link.getCurrentClicks());
+                        applied++;
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println("Пропущена некорректная запись журнала переходов: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения журнала переходов: " + e.getMessage());
+        }
+        return applied;
+    }
+
+    public synchronized void flush() throws IOException {
+        flushRequested.set(false);
+        pendingClicks.set(0);
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+
+        StringBuilder batch = new StringBuilder();
+        Iterator<Map.Entry<String, AtomicInteger>> iterator = pendingDeltas.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, AtomicInteger> entry = iterator.next();
+            iterator.remove();
+
+            ShortLink link = links.get(entry.getKey());
+            if (link != null) {
+                batch.append(entry.getKey())
+                        .append('|').append(entry.getValue().get())
+                        .append('|').append(link.getCurrentClicks())
+                        .append('\n');
+            }
+        }
+
+        if (batch.length() == 0) {
+            return;
+        }
+
+        if (channel == null) {
+            channel = FileChannel.open(journalFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        long start = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        uncheckpointed = true;
+        FLUSH_LATENCY.recordSince(start);
+    }
+
+    // Сбрасывает накопленное, сохраняет хранилище и очищает журнал переходов
+    public synchronized void checkpoint() throws IOException {
+        flush();
+        if (!uncheckpointed) {
+            return;
+        }
+        if (!checkpointAction.getAsBoolean()) {
+            throw new IOException("хранилище ссылок не сохранено, журнал переходов оставлен до следующей попытки");
+        }
+
+        if (channel != null) {
+            channel.truncate(0);
+            channel.force(true);
+        } else {
+            Files.deleteIfExists(journalFile);
+        }
+        uncheckpointed = false;
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        checkpointSafely();
+
+        synchronized (this) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+            } catch (IOException e) {
+                System.err.println("Ошибка закрытия журнала переходов: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Ошибка записи журнала переходов: " + e.getMessage());
+        }
+    }
+
+    private void checkpointSafely() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.err.println("Ошибка контрольной точки переходов: " + e.getMessage());
+        }
+    }
+}
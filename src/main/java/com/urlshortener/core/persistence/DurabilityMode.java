@@ -0,0 +1,28 @@
+package com.urlshortener.core.persistence;
+
+public enum DurabilityMode {
+    // Запись в фоне, без ожидания и без fsync
+    ASYNC,
+    // Запись в фоне пачками с одним fsync на пачку, вызывающий поток ждет fsync своей пачки
+    GROUP_COMMIT,
+    // Запись и fsync в вызывающем потоке
+    SYNC;
+
+    public static DurabilityMode fromString(String value) {
+        if (value == null) {
+            return GROUP_COMMIT;
+        }
+
+        switch (value.trim().toLowerCase()) {
+            case "async":
+                return ASYNC;
+            case "group-commit":
+                return GROUP_COMMIT;
+            case "sync":
+                return SYNC;
+            default:
+                System.err.println("Неизвестный режим надежности '" + value + "'. Используется group-commit.");
+                return GROUP_COMMIT;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.urlshortener.core.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Фоновый поток записи журнала: собирает записи, пришедшие в пределах окна
+// или до заполнения пачки, и сохраняет их одной записью на диск
+class GroupCommitWriter {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final LinkJournal journal;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final boolean force;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    GroupCommitWriter(LinkJournal journal, long windowMillis, int maxBatch, boolean force) {
+        this.journal = journal;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.maxBatch = Math.max(1, maxBatch);
+        this.force = force;
+        this.thread = new Thread(this::run, "link-journal-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    CompletableFuture<Void> submit(String record) {
+        return submit(record != null ? Collections.singletonList(record) : null);
+    }
+
+    // Записи пакета попадают в одну запись на диск и подтверждаются вместе.
+    // Запись, добавленная одновременно с close(), могла уже не застать поток записи:
+    // после добавления running проверяется снова, и такая запись завершается ошибкой
+    CompletableFuture<Void> submit(List<String> records) {
+        PendingRecord pending = new PendingRecord(records);
+        if (!running) {
+            pending.future.completeExceptionally(closedError());
+            return pending.future;
+        }
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            pending.future.completeExceptionally(closedError());
+        }
+        return pending.future;
+    }
+
+    // Завершается, когда все ранее отправленные записи сохранены
+    CompletableFuture<Void> flush() {
+        return submit((List<String>) null);
+    }
+
+    void close() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatch);
+        List<String> records = new ArrayList<>(maxBatch);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            for (PendingRecord pending : batch) {
+                if (pending.records != null) {
+                    records.addAll(pending.records);
+                }
+            }
+
+            try {
+                if (!records.isEmpty()) {
+                    journal.writeBatch(records, force);
+                }
+                for (PendingRecord pending : batch) {
+                    pending.future.complete(null);
+                }
+            } catch (IOException e) {
+                for (PendingRecord pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+
+            batch.clear();
+            records.clear();
+        }
+
+        PendingRecord left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(closedError());
+        }
+    }
+
+    private static IOException closedError() {
+        return new IOException("журнал закрыт");
+    }
+
+    private void collect(List<PendingRecord> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, maxBatch - batch.size());
+                return;
+            }
+
+            PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private static final class PendingRecord {
+        private final List<String> records;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingRecord(List<String> records) {
+            this.records = records;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.urlshortener.core.persistence;
+
+import com.urlshortener.core.metrics.LatencyHistogram;
+import com.urlshortener.core.metrics.Metrics;
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Журнал изменений ссылок: каждая мутация дописывается одной строкой в конец файла.
+// Записи: C|<строка снимка>, U|code|expires|max|active, D|code.
+// Переходы сюда не пишутся, для них есть ClickJournal
+public class LinkJournal {
+    private static final String CREATE = "C";
+    private static final String UPDATE = "U";
+    private static final String DELETE = "D";
+
+    private static final LatencyHistogram FLUSH_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_persist_flush_duration_seconds", "Время сброса изменений на диск", "target", "journal");
+    private static final LongAdder FLUSHED_RECORDS = Metrics.getInstance().counter(
+            "urlshortener_persist_records_total", "Записей, сохраненных в журнал ссылок");
+
+    private final Path journalFile;
+    private final DurabilityMode durability;
+    private final GroupCommitWriter writer;
+    private final AtomicInteger recordCount = new AtomicInteger();
+    private FileChannel channel;
+
+    public LinkJournal(Path journalFile, DurabilityMode durability, long groupCommitWindowMillis, int groupCommitMaxBatch) {
+        this.journalFile = journalFile;
+        this.durability = durability;
+        this.writer = durability == DurabilityMode.SYNC
+                ? null
+                : new GroupCommitWriter(this, groupCommitWindowMillis, groupCommitMaxBatch,
+                        durability == DurabilityMode.GROUP_COMMIT);
+    }
+
+    public DurabilityMode getDurability() {
+        return durability;
+    }
+
+    public static String createRecord(ShortLink link) {
+        return CREATE + "|" + LinkLineFormat.format(link);
+    }
+
+    public static String updateRecord(ShortLink link) {
+        return String.join("|",
+                UPDATE,
+                link.getShortCode(),
+                link.getExpiresAt().toString(),
+                String.valueOf(link.getMaxClicks()),
+                String.valueOf(link.isActive())
+        );
+    }
+
+    public static String deleteRecord(String shortCode) {
+        return DELETE + "|" + shortCode;
+    }
+
+    // Накатывает журнал поверх уже загруженного снимка, возвращает число примененных записей
+    public int replay(LinkStorage links) {
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    if (apply(line, links)) {
+                        applied++;
+                    } else {
+                        System.err.println("Пропущена некорректная запись журнала: " + line);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Ошибка разбора записи журнала: " + line);
+                    System.err.println("Причина: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения журнала ссылок: " + e.getMessage());
+        }
+        return applied;
+    }
+
+    private static boolean apply(String line, LinkStorage links) {
+        int separator = line.indexOf('|');
+        if (separator < 0) {
+            return false;
+        }
+
+        String type = line.substring(0, separator);
+        String body = line.substring(separator + 1);
+
+        switch (type) {
+            case CREATE: {
+                ShortLink link = LinkLineFormat.parse(body);
+                if (link == null) {
+                    return false;
+                }
+                links.put(link);
+                return true;
+            }
+            case UPDATE: {
+                String[] parts = body.split("\\|");
+                if (parts.length != 4) {
+                    return false;
+                }
+                ShortLink link = links.get(parts[0]);
+                if (link != null) {
+                    link.setExpiresAt(LocalDateTime.parse(parts[1]));
+                    link.setMaxClicks(Integer.parseInt(parts[2]));
+                    link.setActive(Boolean.parseBoolean(parts[3]));
+                }
+                return true;
+            }
+            case DELETE:
+                links.remove(body);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public CompletableFuture<Void> append(String record) {
+        recordCount.incrementAndGet();
+
+        if (writer == null) {
+            try {
+                writeBatch(Collections.singletonList(record), true);
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return writer.submit(record);
+    }
+
+    // Пакет записей сохраняется одной записью на диск
+    public CompletableFuture<Void> appendAll(List<String> records) {
+        recordCount.addAndGet(records.size());
+
+        if (writer == null) {
+            try {
+                writeBatch(records, true);
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return writer.submit(records);
+    }
+
+    synchronized void writeBatch(List<String> records, boolean force) throws IOException {
+        long start = System.nanoTime();
+        open();
+
+        StringBuilder batch = new StringBuilder();
+        for (String record : records) {
+            batch.append(record).append('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        if (force) {
+            channel.force(false);
+        }
+        FLUSH_LATENCY.recordSince(start);
+        FLUSHED_RECORDS.add(records.size());
+    }
+
+    public int getRecordCount() {
+        return recordCount.get();
+    }
+
+    // Дожидается записи всех отправленных в журнал изменений
+    public void flush() {
+        if (writer != null) {
+            writer.flush().join();
+        }
+    }
+
+    // Вызывается после записи свежего снимка: все записи журнала в нем уже учтены
+    public void truncate() throws IOException {
+        flush();
+
+        synchronized (this) {
+            open();
+            channel.truncate(0);
+            channel.force(true);
+            recordCount.set(0);
+        }
+    }
+
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+
+        synchronized (this) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(journalFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+    }
+}
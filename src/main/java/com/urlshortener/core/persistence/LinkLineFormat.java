@@ -0,0 +1,46 @@
+package com.urlshortener.core.persistence;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Формат строки основного файла ссылок: code|url|owner|created|expires|max|clicks|active
+public final class LinkLineFormat {
+    private static final int FIELD_COUNT = 8;
+
+    private LinkLineFormat() {
+    }
+
+    public static String format(ShortLink link) {
+        return String.join("|",
+                link.getShortCode(),
+                link.getOriginalUrl(),
+                link.getOwnerId().toString(),
+                link.getCreatedAt().toString(),
+                link.getExpiresAt().toString(),
+                String.valueOf(link.getMaxClicks()),
+                String.valueOf(link.getCurrentClicks()),
+                String.valueOf(link.isActive())
+        );
+    }
+
+    // Возвращает null, если в строке неверное число полей
+    public static ShortLink parse(String line) {
+        String[] parts = line.split("\\|", FIELD_COUNT);
+        if (parts.length != FIELD_COUNT) {
+            return null;
+        }
+
+        return new ShortLink(
+                parts[0],
+                parts[1],
+                UUID.fromString(parts[2]),
+                LocalDateTime.parse(parts[3]),
+                LocalDateTime.parse(parts[4]),
+                Integer.parseInt(parts[5]),
+                Integer.parseInt(parts[6]),
+                Boolean.parseBoolean(parts[7])
+        );
+    }
+}
@@ -0,0 +1,317 @@
+package com.urlshortener.core.persistence;
+
+import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.metrics.LatencyHistogram;
+import com.urlshortener.core.metrics.Metrics;
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+public class LinkPersistence {
+    private static final LatencyHistogram LOAD_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_load_duration_seconds", "Время загрузки ссылок при старте");
+    private static final LatencyHistogram SNAPSHOT_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_persist_flush_duration_seconds", "Время сброса изменений на диск", "target", "snapshot");
+    private static final int WRITE_STRIPES = 64;
+
+    private final LinkStorage links;
+    private final Path snapshotFile;
+    private final Path binarySnapshotFile;
+    private final boolean binaryFormat;
+    private final PersistenceMode mode;
+    private final LinkJournal journal;
+    private final int compactThreshold;
+    private final ParallelTextLoader textLoader;
+    private volatile int snapshotSize;
+
+    // Мутации берут read-lock, сжатие журнала - write-lock,
+    // чтобы снимок и усеченный журнал не разошлись с памятью
+    private final ReentrantReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    // Изменение кода и его запись в журнал идут под блокировкой полосы кода: иначе два изменения
+    // одной ссылки могли бы попасть в журнал в обратном порядке и восстановиться неверно
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_STRIPES];
+
+    public LinkPersistence(LinkStorage links, Path snapshotFile, Path binarySnapshotFile, Path journalFile) {
+        AppConfig config = AppConfig.getInstance();
+
+        this.links = links;
+        this.snapshotFile = snapshotFile;
+        this.binarySnapshotFile = binarySnapshotFile;
+        this.binaryFormat = "binary".equalsIgnoreCase(config.getStorageFormat());
+        this.mode = PersistenceMode.fromString(config.getPersistenceMode());
+        this.compactThreshold = config.getJournalCompactThreshold();
+        this.textLoader = new ParallelTextLoader(config.getLoadParallelism(), config.getLoadChunkSizeKb() * 1024);
+        this.journal = mode == PersistenceMode.JOURNAL
+                ? new LinkJournal(journalFile,
+                        DurabilityMode.fromString(config.getPersistenceDurability()),
+                        config.getGroupCommitWindowMillis(),
+                        config.getGroupCommitMaxBatch())
+                : null;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    public void load() {
+        long start = System.nanoTime();
+        boolean migrate = false;
+
+        if (binaryFormat && Files.exists(binarySnapshotFile)) {
+            loadBinarySnapshot();
+        } else {
+            loadSnapshot();
+            migrate = binaryFormat && !links.isEmpty();
+        }
+
+        if (mode == PersistenceMode.JOURNAL) {
+            int replayed = journal.replay(links);
+            if (replayed > 0) {
+                System.out.println("Из журнала восстановлено изменений: " + replayed);
+                migrate = true;
+            }
+        }
+
+        if (migrate) {
+            compact();
+        }
+        snapshotSize = links.size();
+        LOAD_LATENCY.recordSince(start);
+    }
+
+    // Применяет изменение ссылки shortCode к памяти и сохраняет его.
+    // mutation возвращает запись журнала или null, если сохранять нечего
+    public void write(String shortCode, Supplier<String> mutation) {
+        if (mode == PersistenceMode.SNAPSHOT) {
+            if (mutation.get() != null) {
+                saveSnapshot();
+            }
+            return;
+        }
+
+        CompletableFuture<Void> pending;
+        ReentrantLock codeLock = writeLocks[stripe(shortCode)];
+        compactionLock.readLock().lock();
+        codeLock.lock();
+        try {
+            String record = mutation.get();
+            if (record == null) {
+                return;
+            }
+            pending = journal.append(record);
+        } finally {
+            codeLock.unlock();
+            compactionLock.readLock().unlock();
+        }
+
+        awaitAndCompact(pending, compactThreshold);
+    }
+
+    // Пакетное изменение: mutation возвращает записи журнала для всех измененных ссылок.
+    // В режиме снимка файл переписывается один раз, в режиме журнала записи уходят на диск вместе
+    public void writeAll(Supplier<List<String>> mutation) {
+        if (mode == PersistenceMode.SNAPSHOT) {
+            if (!mutation.get().isEmpty()) {
+                saveSnapshot();
+            }
+            return;
+        }
+
+        // Пакет затрагивает произвольные коды, поэтому берет все полосы по порядку
+        CompletableFuture<Void> pending;
+        compactionLock.readLock().lock();
+        for (ReentrantLock lock : writeLocks) {
+            lock.lock();
+        }
+        try {
+            List<String> records = mutation.get();
+            if (records.isEmpty()) {
+                return;
+            }
+            pending = journal.appendAll(records);
+        } finally {
+            for (int i = writeLocks.length - 1; i >= 0; i--) {
+                writeLocks[i].unlock();
+            }
+            compactionLock.readLock().unlock();
+        }
+
+        // Пакет сам может быть больше порога сжатия. Чтобы серия пакетов (загрузка из файла)
+        // не переписывала снимок после каждого, журнал растет до размера последнего снимка:
+        // снимки удваиваются, и общая стоимость сжатий остается линейной
+        awaitAndCompact(pending, Math.max(compactThreshold, snapshotSize));
+    }
+
+    // В режимах sync и group-commit вызывающий ждет записи на диск, поэтому ошибка записи
+    // доходит до него как UncheckedIOException. Изменение при этом уже применено в памяти
+    // и попадет на диск со следующим успешным сжатием журнала
+    private void awaitAndCompact(CompletableFuture<Void> pending, int threshold) {
+        if (journal.getDurability() == DurabilityMode.ASYNC) {
+            pending.exceptionally(e -> {
+                System.err.println("Ошибка записи в журнал ссылок: " + e.getMessage());
+                return null;
+            });
+        } else {
+            try {
+                pending.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw new UncheckedIOException("Изменение не записано в журнал ссылок: " + cause.getMessage(),
+                            (IOException) cause);
+                }
+                throw e;
+            }
+        }
+
+        if (journal.getRecordCount() >= threshold) {
+            compact();
+        }
+    }
+
+    private static int stripe(String shortCode) {
+        int hash = shortCode.hashCode();
+        return (hash ^ (hash >>> 16)) & (WRITE_STRIPES - 1);
+    }
+
+    // Возвращает false, если снимок не сохранен: тогда журналы, которые он должен был
+    // заменить (в том числе журнал переходов), очищать нельзя
+    public boolean compact() {
+        if (mode == PersistenceMode.SNAPSHOT) {
+            return saveSnapshot();
+        }
+
+        compactionLock.writeLock().lock();
+        try {
+            writeSnapshot();
+            journal.truncate();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ошибка сжатия журнала ссылок: " + e.getMessage());
+            return false;
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка закрытия журнала ссылок: " + e.getMessage());
+        }
+    }
+
+    private synchronized boolean saveSnapshot() {
+        try {
+            writeSnapshot();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ошибка сохранения ссылок: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        long start = System.nanoTime();
+        Path targetFile = binaryFormat ? binarySnapshotFile : snapshotFile;
+        Path tempFile = targetFile.resolveSibling(targetFile.getFileName() + ".tmp");
+        int written = 0;
+
+        if (binaryFormat) {
+            try (BinarySnapshot.Writer writer = BinarySnapshot.open(tempFile)) {
+                for (ShortLink link : links) {
+                    writer.write(link);
+                    written++;
+                }
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+                for (ShortLink link : links) {
+                    writer.write(LinkLineFormat.format(link));
+                    writer.newLine();
+                    written++;
+                }
+                writer.flush();
+                // Снимок должен лечь на диск раньше, чем compact() очистит журнал
+                channel.force(true);
+            }
+        }
+
+        replaceFile(tempFile, targetFile);
+        snapshotSize = written;
+        SNAPSHOT_LATENCY.recordSince(start);
+    }
+
+    // После переименования сбрасывается и каталог, иначе при сбое питания на диске может
+    // остаться старая запись каталога, указывающая на прежний файл
+    static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Windows не открывает каталог как файл; переименование там сохраняется файловой системой
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private void loadBinarySnapshot() {
+        try {
+            BinarySnapshot.read(binarySnapshotFile, links::put);
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения бинарного снимка ссылок: " + e.getMessage());
+        }
+    }
+
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+
+        try {
+            textLoader.load(snapshotFile, links);
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения файла ссылок: " + e.getMessage());
+        }
+    }
+}
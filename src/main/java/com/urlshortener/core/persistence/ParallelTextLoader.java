@@ -0,0 +1,241 @@
+package com.urlshortener.core.persistence;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Загрузка текстового файла ссылок частями: файл делится на диапазоны байт по границам строк,
+// диапазоны читаются, разбираются и вставляются в хранилище на ForkJoinPool
+public class ParallelTextLoader {
+    private static final int MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private final int parallelism;
+    private final int minChunkSize;
+
+    public ParallelTextLoader(int parallelism, int minChunkSize) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.minChunkSize = Math.max(SCAN_BUFFER_SIZE, minChunkSize);
+    }
+
+    public int load(Path file, LinkStorage links) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long started = System.nanoTime();
+
+            long[] bounds = splitLines(channel);
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk(bounds[i], bounds[i + 1]);
+            }
+
+            runChunks(pool, chunks.length, i -> chunks[i].read(channel));
+            long read = System.nanoTime();
+
+            runChunks(pool, chunks.length, i -> chunks[i].parse());
+            long parsed = System.nanoTime();
+
+            runChunks(pool, chunks.length, i -> chunks[i].insert(links));
+            long inserted = System.nanoTime();
+
+            int loaded = 0;
+            for (Chunk chunk : chunks) {
+                for (String error : chunk.errors) {
+                    System.err.println(error);
+                }
+                loaded += chunk.links.size();
+            }
+
+            System.out.printf("Загрузка ссылок: чтение %d мс, разбор %d мс, вставка %d мс (частей: %d, потоков: %d)%n",
+                    (read - started) / 1_000_000,
+                    (parsed - read) / 1_000_000,
+                    (inserted - parsed) / 1_000_000,
+                    chunks.length,
+                    parallelism);
+            return loaded;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Границы частей: каждая часть, кроме последней, заканчивается сразу после '\n'
+    private long[] splitLines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(minChunkSize, size / ((long) parallelism * 4));
+        chunkSize = Math.min(chunkSize, MAX_CHUNK_SIZE);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = chunkSize;
+        while (position < size) {
+            long lineEnd = findLineEnd(channel, position, scan);
+            if (lineEnd >= size) {
+                break;
+            }
+            if (lineEnd - bounds.get(bounds.size() - 1) > MAX_CHUNK_SIZE) {
+                throw new IOException("строка длиннее " + MAX_CHUNK_SIZE + " байт");
+            }
+            bounds.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long findLineEnd(FileChannel channel, long from, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (true) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static void runChunks(ForkJoinPool pool, int count, ChunkAction action) throws IOException {
+        try {
+            pool.invoke(new ChunkTask(0, count, i -> {
+                try {
+                    action.run(i);
+                } catch (IOException e) {
+                    throw new ChunkFailure(e);
+                }
+            }));
+        } catch (ChunkFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface ChunkAction {
+        void run(int index) throws IOException;
+    }
+
+    private static final class ChunkFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private ChunkFailure(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        private ChunkTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    action.accept(from);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, middle, action), new ChunkTask(middle, to, action));
+        }
+    }
+
+    private static final class Chunk {
+        private final long start;
+        private final long end;
+        private byte[] bytes;
+        private final List<ShortLink> links = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        private Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private void read(FileChannel channel) throws IOException {
+            bytes = new byte[(int) (end - start)];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, start + buffer.position());
+                if (read < 0) {
+                    throw new IOException("файл изменился во время загрузки");
+                }
+            }
+        }
+
+        private void parse() {
+            int lineStart = 0;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i < bytes.length && bytes[i] != '\n') {
+                    continue;
+                }
+
+                int lineEnd = i;
+                if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > lineStart || i < bytes.length) {
+                    parseLine(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                }
+                lineStart = i + 1;
+            }
+            bytes = null;
+        }
+
+        private void parseLine(String line) {
+            try {
+                ShortLink link = LinkLineFormat.parse(line);
+                if (link == null) {
+                    errors.add("Пропущена некорректная строка: " + line);
+                    return;
+                }
+                links.add(link);
+            } catch (Exception e) {
+                errors.add("Ошибка парсинга строки: " + line);
+                errors.add("Причина: " + e.getMessage());
+            }
+        }
+
+        private void insert(LinkStorage target) {
+            for (ShortLink link : links) {
+                target.put(link);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.urlshortener.core.persistence;
+
+public enum PersistenceMode {
+    // Полная перезапись файла ссылок при каждом изменении
+    SNAPSHOT,
+    // Дозапись изменений в журнал, периодическое сжатие в снимок
+    JOURNAL;
+
+    public static PersistenceMode fromString(String value) {
+        if (value == null) {
+            return JOURNAL;
+        }
+
+        switch (value.trim().toLowerCase()) {
+            case "snapshot":
+                return SNAPSHOT;
+            case "journal":
+                return JOURNAL;
+            default:
+                System.err.println("Неизвестный режим хранения '" + value + "'. Используется journal.");
+                return JOURNAL;
+        }
+    }
+}
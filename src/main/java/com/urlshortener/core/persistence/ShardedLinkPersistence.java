@@ -0,0 +1,244 @@
+package com.urlshortener.core.persistence;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.core.storage.ShardedLinkStorage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Сохранение шардированного хранилища: у каждого шарда свои снимок, журнал и блокировка сжатия.
+// Файлы шарда i получают суффикс перед расширением: url_shortener_links.3.txt.
+// При одном шарде используются прежние имена файлов без суффикса
+public class ShardedLinkPersistence {
+    private final LinkStorage[] shards;
+    private final LinkPersistence[] persistences;
+    private final Path snapshotFile;
+    private final Path binarySnapshotFile;
+    private final Path journalFile;
+    // Потоки для загрузки и записи шардов; запись с fsync блокирует поток, поэтому общий
+    // ForkJoinPool для нее не подходит. null при одном шарде
+    private final ExecutorService shardExecutor;
+
+    public ShardedLinkPersistence(LinkStorage links, Path snapshotFile, Path binarySnapshotFile, Path journalFile) {
+        this.shards = shardsOf(links);
+        this.snapshotFile = snapshotFile;
+        this.binarySnapshotFile = binarySnapshotFile;
+        this.journalFile = journalFile;
+        this.persistences = new LinkPersistence[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            persistences[i] = new LinkPersistence(shards[i],
+                    shardFile(snapshotFile, i, shards.length),
+                    shardFile(binarySnapshotFile, i, shards.length),
+                    shardFile(journalFile, i, shards.length));
+        }
+        this.shardExecutor = shards.length > 1 ? newShardExecutor(shards.length) : null;
+    }
+
+    private static ExecutorService newShardExecutor(int shardCount) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.min(shardCount, Runtime.getRuntime().availableProcessors()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "link-shard-io-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static LinkStorage[] shardsOf(LinkStorage links) {
+        if (!(links instanceof ShardedLinkStorage)) {
+            return new LinkStorage[]{links};
+        }
+
+        ShardedLinkStorage sharded = (ShardedLinkStorage) links;
+        LinkStorage[] shards = new LinkStorage[sharded.getShardCount()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = sharded.getShard(i);
+        }
+        return shards;
+    }
+
+    public static Path shardFile(Path file, int shard, int shardCount) {
+        if (shardCount == 1) {
+            return file;
+        }
+
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String shardName = dot > 0
+                ? name.substring(0, dot) + "." + shard + name.substring(dot)
+                : name + "." + shard;
+        return file.resolveSibling(shardName);
+    }
+
+    // Число шардов, в котором лежат файлы на диске: 1 для прежних имен без суффикса,
+    // 0, если файлов нет. Пустые последние шарды могли не оставить файлов, поэтому
+    // для раскладки с суффиксами это нижняя оценка
+    public static int detectShardCount(Path... files) throws IOException {
+        int maxIndex = -1;
+        boolean unsharded = false;
+
+        for (Path file : files) {
+            if (Files.exists(file)) {
+                unsharded = true;
+            }
+            maxIndex = Math.max(maxIndex, maxShardIndex(file));
+        }
+
+        if (maxIndex >= 0) {
+            return maxIndex + 1;
+        }
+        return unsharded ? 1 : 0;
+    }
+
+    private static int maxShardIndex(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return -1;
+        }
+
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String prefix = (dot > 0 ? name.substring(0, dot) : name) + ".";
+        String suffix = dot > 0 ? name.substring(dot) : "";
+
+        int maxIndex = -1;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path entry : entries) {
+                String entryName = entry.getFileName().toString();
+                String index = entryName.substring(prefix.length(), entryName.length() - suffix.length());
+                if (!index.isEmpty() && index.chars().allMatch(Character::isDigit) && index.length() < 10) {
+                    maxIndex = Math.max(maxIndex, Integer.parseInt(index));
+                }
+            }
+        }
+        return maxIndex;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public PersistenceMode getMode() {
+        return persistences[0].getMode();
+    }
+
+    // Шарды загружаются параллельно. Файлы с другим числом шардов не загружаются:
+    // ссылки разложены по другим файлам, и часть из них оказалась бы недоступна
+    public void load() {
+        checkLayout();
+
+        if (shards.length == 1) {
+            persistences[0].load();
+            return;
+        }
+
+        List<CompletableFuture<Void>> loads = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            loads.add(CompletableFuture.runAsync(() -> loadShard(shard), shardExecutor));
+        }
+        joinAll(loads);
+    }
+
+    // Ждет все задачи шардов и пробрасывает исключение первой упавшей без обертки
+    private static void joinAll(List<CompletableFuture<Void>> tasks) {
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void loadShard(int shard) {
+        persistences[shard].load();
+
+        for (ShortLink link : shards[shard]) {
+            if (ShardedLinkStorage.shardOf(link.getShortCode(), shards.length) != shard) {
+                throw new IllegalStateException("Ссылка " + link.getShortCode() + " лежит в файлах шарда " + shard +
+                        ", а не своего шарда: файлы созданы с другим storage.shards. Выполните ReshardTool");
+            }
+        }
+    }
+
+    private void checkLayout() {
+        int onDisk;
+        try {
+            onDisk = detectShardCount(snapshotFile, binarySnapshotFile, journalFile);
+        } catch (IOException e) {
+            System.err.println("Ошибка проверки файлов шардов: " + e.getMessage());
+            return;
+        }
+
+        if (onDisk > shards.length || (onDisk == 1 && shards.length > 1)
+                || (shards.length == 1 && onDisk > 1)) {
+            throw new IllegalStateException("Файлы ссылок разложены на " + onDisk + " шард(ов), а storage.shards=" +
+                    shards.length + ". Выполните ReshardTool " + shards.length);
+        }
+    }
+
+    // mutation выполняется под блокировкой шарда, которому принадлежит код, и блокировкой самого кода
+    public void write(String shortCode, Supplier<String> mutation) {
+        persistences[ShardedLinkStorage.shardOf(shortCode, shards.length)].write(shortCode, mutation);
+    }
+
+    // Пакет делится по шардам; каждая часть сохраняется одной записью журнала своего шарда,
+    // части разных шардов пишутся параллельно
+    public void writeAll(List<ShortLink> links, Function<List<ShortLink>, List<String>> mutation) {
+        if (shards.length == 1) {
+            persistences[0].writeAll(() -> mutation.apply(links));
+            return;
+        }
+
+        List<List<ShortLink>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>(links.size() / shards.length + 1));
+        }
+        for (ShortLink link : links) {
+            parts.get(ShardedLinkStorage.shardOf(link.getShortCode(), shards.length)).add(link);
+        }
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            List<ShortLink> part = parts.get(i);
+            if (!part.isEmpty()) {
+                LinkPersistence shardPersistence = persistences[i];
+                writes.add(CompletableFuture.runAsync(
+                        () -> shardPersistence.writeAll(() -> mutation.apply(part)), shardExecutor));
+            }
+        }
+        joinAll(writes);
+    }
+
+    // Сжимаются все шарды, даже если какой-то не удался; false, если не удался хотя бы один
+    public boolean compact() {
+        boolean saved = true;
+        for (LinkPersistence persistence : persistences) {
+            saved &= persistence.compact();
+        }
+        return saved;
+    }
+
+    public void close() {
+        if (shardExecutor != null) {
+            shardExecutor.shutdown();
+        }
+        for (LinkPersistence persistence : persistences) {
+            persistence.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.urlshortener.core.ratelimit;
+
+import com.urlshortener.core.config.ConfigSnapshot;
+
+import java.util.UUID;
+
+// Ограничения частоты приложения: создание ссылок - по владельцу, переходы - по паре
+// код + клиент (для консоли, где клиента нет, - по коду). Значения перечитываются
+// при изменении конфигурации; ratelimit.enabled=false снимает оба ограничения
+public class RateLimits {
+    private final TokenBucketLimiter<UUID> create;
+    private final TokenBucketLimiter<Object> redirect;
+    private volatile long idleMillis;
+
+    public RateLimits(ConfigSnapshot config) {
+        this.create = new TokenBucketLimiter<>(0, 1);
+        this.redirect = new TokenBucketLimiter<>(0, 1);
+        applyConfig(config);
+    }
+
+    public void applyConfig(ConfigSnapshot config) {
+        boolean enabled = config.isRateLimitEnabled();
+        create.setLimits(enabled ? config.getRateLimitCreatePerSecond() : 0, config.getRateLimitCreateBurst());
+        redirect.setLimits(enabled ? config.getRateLimitRedirectPerSecond() : 0, config.getRateLimitRedirectBurst());
+        idleMillis = Math.max(1, config.getRateLimitIdleSeconds()) * 1000L;
+    }
+
+    // links - число создаваемых ссылок: пакет расходует по маркеру на ссылку
+    public boolean tryCreate(UUID ownerId, int links) {
+        return create.tryAcquire(ownerId, links);
+    }
+
+    // Самый большой пакет, который может пройти ограничение создания
+    public int getMaxCreateBatch() {
+        return create.getMaxPermits();
+    }
+
+    // clientId - адрес клиента HTTP или null
+    public boolean tryRedirect(String shortCode, String clientId) {
+        if (redirect.isUnlimited()) {
+            return true;
+        }
+        return redirect.tryAcquire(clientId == null ? shortCode : new ClientCode(shortCode, clientId));
+    }
+
+    // Удаляет простаивающие корзины, возвращает их число
+    public int evictIdle() {
+        long idle = idleMillis;
+        return create.evictIdle(idle) + redirect.evictIdle(idle);
+    }
+
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+
+    public int getCreateBuckets() {
+        return create.size();
+    }
+
+    public int getRedirectBuckets() {
+        return redirect.size();
+    }
+
+    private static final class ClientCode {
+        private final String shortCode;
+        private final String clientId;
+
+        private ClientCode(String shortCode, String clientId) {
+            this.shortCode = shortCode;
+            this.clientId = clientId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClientCode)) {
+                return false;
+            }
+            ClientCode other = (ClientCode) o;
+            return shortCode.equals(other.shortCode) && clientId.equals(other.clientId);
+        }
+
+        @Override
+        public int hashCode() {
+            return shortCode.hashCode() * 31 + clientId.hashCode();
+        }
+    }
+}
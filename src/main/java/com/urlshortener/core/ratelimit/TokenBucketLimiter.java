@@ -0,0 +1,138 @@
+package com.urlshortener.core.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+// Ограничение частоты по ключу алгоритмом token bucket. Состояние корзины упаковано в один
+// long: старшие 40 бит - момент последнего пополнения в миллисекундах от создания ограничителя,
+// младшие 24 - запас в тысячных долях маркера. Маркер забирается CAS-ом без блокировок;
+// отказ только читает состояние и ничего не пишет. Полная корзина ничем не отличается от
+// отсутствующей, поэтому простаивающие полные корзины можно удалять
+public class TokenBucketLimiter<K> {
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long SCALE = 1000;
+    private static final int MAX_BURST = (int) (TOKEN_MASK / SCALE);
+
+    private final ConcurrentHashMap<K, Bucket> buckets = new ConcurrentHashMap<>();
+    private final long originNanos = System.nanoTime();
+    private volatile Limits limits;
+
+    // perSecond <= 0 снимает ограничение
+    public TokenBucketLimiter(int perSecond, int burst) {
+        setLimits(perSecond, burst);
+    }
+
+    // Новые значения действуют сразу, накопленный запас корзин сохраняется
+    public void setLimits(int perSecond, int burst) {
+        this.limits = new Limits(perSecond, burst);
+    }
+
+    public boolean isUnlimited() {
+        return limits.perSecond <= 0;
+    }
+
+    public boolean tryAcquire(K key) {
+        return tryAcquire(key, 1);
+    }
+
+    // Забирает сразу permits маркеров или ни одного. Больше, чем вмещает корзина, не дается никогда
+    public boolean tryAcquire(K key, int permits) {
+        Limits current = limits;
+        if (current.perSecond <= 0) {
+            return true;
+        }
+
+        long now = nowMillis();
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(now, current.capacity));
+        }
+        return bucket.tryAcquire(now, current, permits * SCALE);
+    }
+
+    // Наибольшее число маркеров, которое можно забрать за раз
+    public int getMaxPermits() {
+        Limits current = limits;
+        return current.perSecond <= 0 ? Integer.MAX_VALUE : (int) (current.capacity / SCALE);
+    }
+
+    // Удаляет корзины, которые не использовались idleMillis и успели наполниться.
+    // Переход, взявший корзину до удаления, может получить один лишний маркер
+    public int evictIdle(long idleMillis) {
+        Limits current = limits;
+        long now = nowMillis();
+        int evicted = 0;
+
+        Iterator<Map.Entry<K, Bucket>> entries = buckets.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<K, Bucket> entry = entries.next();
+            if (entry.getValue().isIdle(now, idleMillis, current) && buckets.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private long nowMillis() {
+        return (System.nanoTime() - originNanos) / 1_000_000;
+    }
+
+    private static final class Limits {
+        private final long perSecond;
+        private final long capacity;
+        // За это время пустая корзина наполняется; ограничивает множитель при пополнении
+        private final long fillMillis;
+
+        private Limits(int perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.capacity = Math.max(1, Math.min(burst, MAX_BURST)) * SCALE;
+            this.fillMillis = perSecond > 0 ? capacity / perSecond + 1 : 0;
+        }
+
+        long refill(long tokens, long elapsedMillis) {
+            return elapsedMillis > 0
+                    ? Math.min(capacity, tokens + Math.min(elapsedMillis, fillMillis) * perSecond)
+                    : Math.min(capacity, tokens);
+        }
+    }
+
+    private static final class Bucket {
+        private static final AtomicLongFieldUpdater<Bucket> STATE =
+                AtomicLongFieldUpdater.newUpdater(Bucket.class, "state");
+
+        private volatile long state;
+
+        private Bucket(long now, long tokens) {
+            this.state = now << TOKEN_BITS | tokens;
+        }
+
+        boolean tryAcquire(long now, Limits limits, long cost) {
+            while (true) {
+                long current = state;
+                long last = current >>> TOKEN_BITS;
+                long tokens = limits.refill(current & TOKEN_MASK, now - last);
+                if (tokens < cost) {
+                    return false;
+                }
+
+                long next = Math.max(now, last) << TOKEN_BITS | (tokens - cost);
+                if (STATE.compareAndSet(this, current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isIdle(long now, long idleMillis, Limits limits) {
+            long current = state;
+            long last = current >>> TOKEN_BITS;
+            return now - last >= idleMillis && limits.refill(current & TOKEN_MASK, now - last) >= limits.capacity;
+        }
+    }
+}
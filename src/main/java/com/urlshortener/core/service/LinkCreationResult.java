@@ -0,0 +1,52 @@
+package com.urlshortener.core.service;
+
+// Итог создания одной ссылки из пакета: код созданной (или повторно выданной) ссылки
+// либо причина отказа
+public class LinkCreationResult {
+    private final String originalUrl;
+    private final String shortCode;
+    private final String error;
+    private final boolean reused;
+
+    private LinkCreationResult(String originalUrl, String shortCode, String error, boolean reused) {
+        this.originalUrl = originalUrl;
+        this.shortCode = shortCode;
+        this.error = error;
+        this.reused = reused;
+    }
+
+    static LinkCreationResult created(String originalUrl, String shortCode) {
+        return new LinkCreationResult(originalUrl, shortCode, null, false);
+    }
+
+    static LinkCreationResult reused(String originalUrl, String shortCode) {
+        return new LinkCreationResult(originalUrl, shortCode, null, true);
+    }
+
+    static LinkCreationResult rejected(String originalUrl, String error) {
+        return new LinkCreationResult(originalUrl, null, error, false);
+    }
+
+    public boolean isCreated() {
+        return shortCode != null;
+    }
+
+    // Код уже был у действующей ссылки того же владельца с тем же URL (link.dedup.enabled)
+    public boolean isReused() {
+        return reused;
+    }
+
+    public String getOriginalUrl() {
+        return originalUrl;
+    }
+
+    // Код созданной ссылки; null, если ссылка отклонена
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    // Причина отказа; null для созданной ссылки
+    public String getError() {
+        return error;
+    }
+}
@@ -1,85 +1,167 @@
 package com.urlshortener.core.service;
 
 import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.metrics.LatencyHistogram;
+import com.urlshortener.core.metrics.Metrics;
 import com.urlshortener.core.model.ShortLink;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class LinkLifecycleService {
+    private static final LatencyHistogram CLEANUP_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_cleanup_duration_seconds", "Время прохода очистки ссылок");
+    private static final LongAdder EXPIRED_LINKS = Metrics.getInstance().counter(
+            "urlshortener_cleanup_expired_total", "Ссылки, деактивированные очисткой по сроку");
+
     private final ShorteningService shorteningService;
     private final ScheduledExecutorService scheduler;
     private volatile boolean isRunning = false;
 
-    private final int checkIntervalMinutes;
+    private int checkIntervalMinutes;
+    private ScheduledFuture<?> cleanupTask;
+    private int filterRebuildMinutes;
+    private ScheduledFuture<?> filterRebuildTask;
+    private ScheduledFuture<?> rateLimitEvictionTask;
 
     public LinkLifecycleService(ShorteningService shorteningService) {
         this.shorteningService = shorteningService;
         this.scheduler = Executors.newSingleThreadScheduledExecutor();
 
         this.checkIntervalMinutes = AppConfig.getInstance().getCleanupIntervalMinutes();
+        this.filterRebuildMinutes = AppConfig.getInstance().getLookupFilterRebuildMinutes();
 
+        AppConfig.getInstance().addChangeListener((oldConfig, newConfig) -> {
+            if (oldConfig.getCleanupIntervalMinutes() != newConfig.getCleanupIntervalMinutes()) {
+                reschedule(newConfig.getCleanupIntervalMinutes());
+            }
+            if (oldConfig.getLookupFilterRebuildMinutes() != newConfig.getLookupFilterRebuildMinutes()) {
+                rescheduleFilterRebuild(newConfig.getLookupFilterRebuildMinutes());
+            }
+            if (oldConfig.getRateLimitIdleSeconds() != newConfig.getRateLimitIdleSeconds()) {
+                rescheduleRateLimitEviction();
+            }
+        });
     }
 
-    public void start() {
+    public synchronized void start() {
         if (isRunning) {
             return;
         }
 
         isRunning = true;
         System.out.println("Служба очистки ссылок запущена. Проверка каждые " + checkIntervalMinutes + " минут");
-        scheduler.scheduleAtFixedRate(() -> {
+        scheduleCleanup(0);
+        scheduleFilterRebuild();
+        scheduleRateLimitEviction();
+    }
+
+    // Неположительный интервал не принимается до отмены текущей задачи: иначе scheduleAtFixedRate
+    // бросил бы исключение и очистка остановилась бы до перезапуска
+    private synchronized void reschedule(int intervalMinutes) {
+        if (intervalMinutes <= 0) {
+            System.err.println("Неверный интервал очистки cleanup.interval.minutes=" + intervalMinutes +
+                    ". Очистка продолжается каждые " + checkIntervalMinutes + " минут");
+            return;
+        }
+
+        checkIntervalMinutes = intervalMinutes;
+        if (!isRunning) {
+            return;
+        }
+
+        cleanupTask.cancel(false);
+        scheduleCleanup(checkIntervalMinutes);
+        System.out.println("Интервал очистки ссылок изменен: каждые " + checkIntervalMinutes + " минут");
+    }
+
+    private void scheduleCleanup(long initialDelayMinutes) {
+        cleanupTask = scheduler.scheduleAtFixedRate(() -> {
             try {
                 cleanupExpiredLinks();
             } catch (Exception e) {
                 System.err.println("Ошибка при очистке ссылок: " + e.getMessage());
             }
-        }, 0, checkIntervalMinutes, TimeUnit.MINUTES);
+        }, initialDelayMinutes, checkIntervalMinutes, TimeUnit.MINUTES);
     }
 
-    public void stop() {
+    private synchronized void rescheduleFilterRebuild(int intervalMinutes) {
+        filterRebuildMinutes = intervalMinutes;
         if (!isRunning) {
             return;
         }
 
-        isRunning = false;
-        scheduler.shutdown();
-        System.out.println("Служба очистки ссылок остановлена");
+        if (filterRebuildTask != null) {
+            filterRebuildTask.cancel(false);
+        }
+        scheduleFilterRebuild();
+        System.out.println("Интервал перестроения фильтра кодов изменен: каждые " + filterRebuildMinutes + " минут");
     }
 
-    private void cleanupExpiredLinks() {
-        LocalDateTime now = LocalDateTime.now();
-        int deactivatedCount = 0;
-        int expiredCount = 0;
-
-        for (ShortLink link : shorteningService.getAllLinks().values()) {
-            boolean shouldDeactivate = false;
-            String reason = "";
+    // Удаленные коды остаются в фильтре до перестроения, поэтому он периодически собирается заново
+    private void scheduleFilterRebuild() {
+        filterRebuildTask = null;
+        if (!shorteningService.isCodeFilterEnabled() || filterRebuildMinutes <= 0) {
+            return;
+        }
 
-            if (link.getExpiresAt().isBefore(now)) {
-                shouldDeactivate = true;
-                reason = "истек срок действия";
-                expiredCount++;
+        filterRebuildTask = scheduler.scheduleAtFixedRate(() -> {
+            try {
+                shorteningService.rebuildCodeFilter();
+            } catch (Exception e) {
+                System.err.println("Ошибка при перестроении фильтра кодов: " + e.getMessage());
             }
+        }, filterRebuildMinutes, filterRebuildMinutes, TimeUnit.MINUTES);
+    }
 
-            if (link.getCurrentClicks() >= link.getMaxClicks() && link.isActive()) {
-                shouldDeactivate = true;
-                reason = "исчерпан лимит переходов";
-                deactivatedCount++;
-            }
+    private synchronized void rescheduleRateLimitEviction() {
+        if (!isRunning) {
+            return;
+        }
+
+        rateLimitEvictionTask.cancel(false);
+        scheduleRateLimitEviction();
+    }
 
-            if (shouldDeactivate && link.isActive()) {
-                link.setActive(false);
-                System.out.println("Ссылка " + link.getShortCode() + " деактивирована: " + reason);
+    // Корзины ограничения частоты, простоявшие дольше ratelimit.idle.seconds, удаляются
+    private void scheduleRateLimitEviction() {
+        long intervalMillis = shorteningService.getRateLimits().getIdleMillis();
+        rateLimitEvictionTask = scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                shorteningService.getRateLimits().evictIdle();
+            } catch (Exception e) {
+                System.err.println("Ошибка при очистке корзин ограничения частоты: " + e.getMessage());
             }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (!isRunning) {
+            return;
+        }
+
+        isRunning = false;
+        scheduler.shutdown();
+        System.out.println("Служба очистки ссылок остановлена");
+    }
+
+    private void cleanupExpiredLinks() {
+        long start = System.nanoTime();
+        List<ShortLink> expired = shorteningService.expireDueLinks(LocalDateTime.now());
+        CLEANUP_LATENCY.recordSince(start);
+        EXPIRED_LINKS.add(expired.size());
+
+        for (ShortLink link : expired) {
+            System.out.println("Ссылка " + link.getShortCode() + " деактивирована: истек срок действия");
         }
 
-        if (deactivatedCount > 0 || expiredCount > 0) {
-            System.out.println("Очистка завершена: " +
-                    deactivatedCount + " по лимиту, " +
-                    expiredCount + " по сроку");
+        if (!expired.isEmpty()) {
+            System.out.println("Очистка завершена: " + expired.size() + " по сроку");
         }
     }
 
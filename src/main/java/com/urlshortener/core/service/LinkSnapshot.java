@@ -0,0 +1,147 @@
+package com.urlshortener.core.service;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Неизменяемый набор ссылок на момент версии version. Ссылки разложены по сегментам по хешу кода:
+// следующая версия копирует только сегменты с измененными кодами, остальные делит с предыдущей.
+// Фиксируется состав ссылок; счетчики переходов и параметры ссылок остаются живыми
+public class LinkSnapshot implements Iterable<ShortLink> {
+    private static final int SEGMENTS = 1024;
+    private static final Map<String, ShortLink> EMPTY_SEGMENT = Map.of();
+
+    private final long version;
+    private final Map<String, ShortLink>[] segments;
+    private final int size;
+
+    private LinkSnapshot(long version, Map<String, ShortLink>[] segments, int size) {
+        this.version = version;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    // Полная сборка обходом хранилища
+    static LinkSnapshot of(long version, LinkStorage storage) {
+        Map<String, ShortLink>[] building = newSegments();
+        int size = 0;
+        for (ShortLink link : storage) {
+            String code = link.getShortCode();
+            int segment = segment(code);
+            if (building[segment] == null) {
+                building[segment] = new HashMap<>();
+            }
+            if (building[segment].put(code, link) == null) {
+                size++;
+            }
+        }
+        return new LinkSnapshot(version, freeze(building, newSegments()), size);
+    }
+
+    // Следующая версия: коды changedCodes перечитываются из хранилища, нетронутые сегменты общие
+    LinkSnapshot withChanges(long nextVersion, Collection<String> changedCodes, LinkStorage storage) {
+        Map<String, ShortLink>[] copies = newSegments();
+        int nextSize = size;
+        for (String code : changedCodes) {
+            int segment = segment(code);
+            if (copies[segment] == null) {
+                copies[segment] = new HashMap<>(segments[segment]);
+            }
+            ShortLink link = storage.get(code);
+            if (link != null) {
+                if (copies[segment].put(code, link) == null) {
+                    nextSize++;
+                }
+            } else if (copies[segment].remove(code) != null) {
+                nextSize--;
+            }
+        }
+        return new LinkSnapshot(nextVersion, freeze(copies, segments), nextSize);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ShortLink get(String shortCode) {
+        return segments[segment(shortCode)].get(shortCode);
+    }
+
+    public boolean contains(String shortCode) {
+        return segments[segment(shortCode)].containsKey(shortCode);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<? super ShortLink> action) {
+        for (Map<String, ShortLink> segment : segments) {
+            segment.values().forEach(action);
+        }
+    }
+
+    @Override
+    public Iterator<ShortLink> iterator() {
+        return new Iterator<>() {
+            private int segment;
+            private Iterator<ShortLink> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && segment < segments.length) {
+                    current = segments[segment++].values().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public ShortLink next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    // Параллельный поток делится по сегментам
+    public Stream<ShortLink> stream(boolean parallel) {
+        Stream<Map<String, ShortLink>> stream = Arrays.stream(segments);
+        return (parallel ? stream.parallel() : stream).flatMap(segment -> segment.values().stream());
+    }
+
+    private static Map<String, ShortLink>[] freeze(Map<String, ShortLink>[] changed,
+                                                   Map<String, ShortLink>[] previous) {
+        for (int i = 0; i < changed.length; i++) {
+            if (changed[i] == null) {
+                changed[i] = previous[i] != null ? previous[i] : EMPTY_SEGMENT;
+            } else if (changed[i].isEmpty()) {
+                changed[i] = EMPTY_SEGMENT;
+            } else {
+                changed[i] = Collections.unmodifiableMap(changed[i]);
+            }
+        }
+        return changed;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<String, ShortLink>[] newSegments() {
+        return new Map[SEGMENTS];
+    }
+
+    private static int segment(String shortCode) {
+        int hash = shortCode.hashCode();
+        return (hash ^ (hash >>> 16)) & (SEGMENTS - 1);
+    }
+}
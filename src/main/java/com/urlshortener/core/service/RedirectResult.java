@@ -0,0 +1,90 @@
+package com.urlshortener.core.service;
+
+import com.urlshortener.core.cache.CachedLink;
+import com.urlshortener.core.model.ShortLink;
+
+// Итог разрешения короткого кода без побочных действий вроде открытия браузера
+public class RedirectResult {
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        INACTIVE,
+        EXPIRED,
+        LIMIT_REACHED,
+        RATE_LIMITED
+    }
+
+    private static final RedirectResult NOT_FOUND = new RedirectResult(Status.NOT_FOUND, null);
+    private static final RedirectResult INACTIVE = new RedirectResult(Status.INACTIVE, null);
+    private static final RedirectResult EXPIRED = new RedirectResult(Status.EXPIRED, null);
+    private static final RedirectResult LIMIT_REACHED = new RedirectResult(Status.LIMIT_REACHED, null);
+    private static final RedirectResult RATE_LIMITED = new RedirectResult(Status.RATE_LIMITED, null);
+
+    private final Status status;
+    private final CachedLink link;
+
+    private RedirectResult(Status status, CachedLink link) {
+        this.status = status;
+        this.link = link;
+    }
+
+    static RedirectResult found(CachedLink link) {
+        return new RedirectResult(Status.FOUND, link);
+    }
+
+    public static RedirectResult of(Status status) {
+        switch (status) {
+            case NOT_FOUND:
+                return NOT_FOUND;
+            case INACTIVE:
+                return INACTIVE;
+            case EXPIRED:
+                return EXPIRED;
+            case LIMIT_REACHED:
+                return LIMIT_REACHED;
+            case RATE_LIMITED:
+                return RATE_LIMITED;
+            default:
+                throw new IllegalArgumentException("Для перехода нужна ссылка");
+        }
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    // Ссылка, по которой разрешен переход; null для остальных статусов
+    public ShortLink getLink() {
+        return link != null ? link.getLink() : null;
+    }
+
+    // Готовое значение заголовка Location; null для остальных статусов
+    public String getLocation() {
+        return link != null ? link.getLocation() : null;
+    }
+
+    public String getLocationHeader() {
+        return link != null ? link.getLocationHeader() : null;
+    }
+
+    public String getMessage() {
+        switch (status) {
+            case NOT_FOUND:
+                return "Ошибка: ссылка не найдена";
+            case INACTIVE:
+                return "Ошибка: ссылка неактивна";
+            case EXPIRED:
+                return "Ошибка: срок действия ссылки истек";
+            case LIMIT_REACHED:
+                return "Ошибка: лимит переходов исчерпан";
+            case RATE_LIMITED:
+                return "Ошибка: слишком много переходов подряд, повторите позже";
+            default:
+                return "Переход разрешен: " + link.getLocation();
+        }
+    }
+}
@@ -1,39 +1,95 @@
 package com.urlshortener.core.service;
 
+import com.urlshortener.core.cache.CachedLink;
+import com.urlshortener.core.metrics.LatencyHistogram;
+import com.urlshortener.core.metrics.Metrics;
 import com.urlshortener.core.model.ShortLink;
 import java.awt.Desktop;
 import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
 
 public class RedirectService {
+    private static final LatencyHistogram RESOLVE_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_redirect_duration_seconds", "Время проверки ссылки при переходе");
+    private static final LongAdder[] OUTCOMES = new LongAdder[RedirectResult.Status.values().length];
+
+    static {
+        for (RedirectResult.Status status : RedirectResult.Status.values()) {
+            OUTCOMES[status.ordinal()] = Metrics.getInstance().counter(
+                    "urlshortener_redirects_total", "Переходы по результату",
+                    "status", status.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
     private final ShorteningService shorteningService;
 
     public RedirectService(ShorteningService shorteningService) {
         this.shorteningService = shorteningService;
     }
 
-    public String redirect(String shortCode) {
-        ShortLink shortLink = shorteningService.getShortLink(shortCode);
+    // Проверяет ссылку и занимает переход. Используется консолью и HTTP-сервером,
+    // поэтому лимиты и сроки соблюдаются одинаково в обоих режимах
+    public RedirectResult resolve(String shortCode) {
+        return resolve(shortCode, null);
+    }
+
+    // clientId - адрес клиента для ограничения частоты переходов или null
+    public RedirectResult resolve(String shortCode, String clientId) {
+        long start = System.nanoTime();
+        RedirectResult result = check(shortCode, clientId);
+        RESOLVE_LATENCY.recordSince(start);
+        OUTCOMES[result.getStatus().ordinal()].increment();
+        return result;
+    }
 
-        if (shortLink == null) {
-            return "Ошибка: ссылка не найдена";
+    // Несуществующий код и превышение частоты отсекаются до обращения к кэшу и хранилищу
+    private RedirectResult check(String shortCode, String clientId) {
+        if (!shorteningService.mightContain(shortCode)) {
+            return RedirectResult.of(RedirectResult.Status.NOT_FOUND);
+        }
+        if (!shorteningService.getRateLimits().tryRedirect(shortCode, clientId)) {
+            return RedirectResult.of(RedirectResult.Status.RATE_LIMITED);
         }
 
+        CachedLink cached = shorteningService.getCachedLink(shortCode);
+
+        if (cached == null) {
+            return RedirectResult.of(RedirectResult.Status.NOT_FOUND);
+        }
+
+        ShortLink shortLink = cached.getLink();
         if (!shortLink.isActive()) {
-            return "Ошибка: ссылка неактивна";
+            return RedirectResult.of(shortLink.isLimitReached()
+                    ? RedirectResult.Status.LIMIT_REACHED
+                    : RedirectResult.Status.INACTIVE);
         }
 
-        if (shortLink.getExpiresAt().isBefore(java.time.LocalDateTime.now())) {
+        if (cached.isExpired(System.currentTimeMillis())) {
             shortLink.setActive(false);
-            return "Ошибка: срок действия ссылки истек";
+            return RedirectResult.of(RedirectResult.Status.EXPIRED);
         }
 
-        if (shortLink.getCurrentClicks() >= shortLink.getMaxClicks()) {
-            shortLink.setActive(false);
-            return "Ошибка: лимит переходов исчерпан";
+        switch (shortLink.tryReserveClick()) {
+            case INACTIVE:
+                return RedirectResult.of(RedirectResult.Status.INACTIVE);
+            case LIMIT_REACHED:
+                return RedirectResult.of(RedirectResult.Status.LIMIT_REACHED);
+            default:
+                break;
         }
 
-        shortLink.setCurrentClicks(shortLink.getCurrentClicks() + 1);
+        shorteningService.recordClick(shortLink);
+        return RedirectResult.found(cached);
+    }
+
+    public String redirect(String shortCode) {
+        RedirectResult result = resolve(shortCode);
+        if (!result.isFound()) {
+            return result.getMessage();
+        }
 
+        ShortLink shortLink = result.getLink();
         try {
             if (Desktop.isDesktopSupported() && Desktop.getDesktop().isSupported(Desktop.Action.BROWSE)) {
                 Desktop.getDesktop().browse(new URI(shortLink.getOriginalUrl()));
@@ -1,111 +1,200 @@
 package com.urlshortener.core.service;
 
+import com.urlshortener.core.cache.CachedLink;
+import com.urlshortener.core.cache.HotLinkCache;
 import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.config.ConfigSnapshot;
+import com.urlshortener.core.exception.RateLimitExceededException;
+import com.urlshortener.core.index.DedupIndex;
+import com.urlshortener.core.index.ExpiryIndex;
+import com.urlshortener.core.index.LinkCodeFilter;
+import com.urlshortener.core.index.OwnerIndex;
+import com.urlshortener.core.metrics.LatencyHistogram;
+import com.urlshortener.core.metrics.Metrics;
 import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.persistence.ClickJournal;
+import com.urlshortener.core.persistence.LinkJournal;
+import com.urlshortener.core.persistence.ShardedLinkPersistence;
+import com.urlshortener.core.ratelimit.RateLimits;
+import com.urlshortener.core.shortcode.ShortCodeGenerator;
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.core.traffic.ClickEventStream;
+import com.urlshortener.core.traffic.HeavyHitters;
+import com.urlshortener.core.traffic.TopLink;
+import com.urlshortener.core.traffic.TrafficStats;
+import com.urlshortener.infra.LinkStorageFactory;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class ShorteningService {
-    private Map<String, ShortLink> linkStorage;
-    private static final String STORAGE_FILE = "url_shortener_links.txt";
+    private static final LatencyHistogram CREATE_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_create_duration_seconds", "Время создания короткой ссылки");
+    private static final LatencyHistogram CREATE_BATCH_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_create_batch_duration_seconds", "Время пакетного создания ссылок");
+    private static final LongAdder BATCH_CREATED_LINKS = Metrics.getInstance().counter(
+            "urlshortener_create_batch_links_total", "Ссылки, созданные пакетами");
+    private static final LongAdder DEDUP_HITS = Metrics.getInstance().counter(
+            "urlshortener_dedup_hits_total", "Повторные сокращения, получившие код существующей ссылки");
+    private static final LongAdder FILTERED_LOOKUPS = Metrics.getInstance().counter(
+            "urlshortener_code_filter_rejections_total", "Запросы несуществующих кодов, отсеянные фильтром");
+    // Не только ложные срабатывания: удаленные коды остаются в фильтре до перестроения и тоже попадают сюда
+    private static final LongAdder FILTER_PASSED_MISSING = Metrics.getInstance().counter(
+            "urlshortener_code_filter_passed_missing_total",
+            "Коды, пропущенные фильтром, но не найденные в хранилище (ложные срабатывания и удаленные коды)");
+    private static final LongAdder CREATE_RATE_LIMITED = Metrics.getInstance().counter(
+            "urlshortener_rate_limited_total", "Запросы, отклоненные ограничением частоты", "scope", "create");
+    private static final RateLimitExceededException CREATE_LIMIT_EXCEEDED =
+            new RateLimitExceededException("Слишком много новых ссылок подряд, повторите позже");
+    private static final LatencyHistogram FILTER_REBUILD_LATENCY = Metrics.getInstance().histogram(
+            "urlshortener_code_filter_rebuild_duration_seconds", "Время перестроения фильтра кодов");
+    // Меньше стольких измененных кодов снимок всегда обновляется по изменениям, а не собирается заново
+    private static final int SNAPSHOT_MIN_TRACKED_CHANGES = 4096;
+
+    private final LinkStorage linkStorage;
+    private final ShardedLinkPersistence persistence;
+    private final ClickJournal clickJournal;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final OwnerIndex ownerIndex = new OwnerIndex();
+    private final ExpiryIndex expiryIndex;
+    // null, если link.dedup.enabled выключен при старте
+    private final DedupIndex dedupIndex;
+    // null, если lookup.filter.enabled выключен при старте
+    private final LinkCodeFilter codeFilter;
+    // null, если traffic.enabled выключен при старте
+    private final ClickEventStream clickEvents;
+    private final TrafficStats trafficStats;
+    // null, если выключен traffic.enabled или top.enabled
+    private final HeavyHitters heavyHitters;
+    private final HotLinkCache hotLinkCache;
+    private final RateLimits rateLimits;
+    // Коды, добавленные или удаленные после последнего снимка; null, пока снимок не запрошен
+    // или пока изменений не стало так много, что дешевле собрать следующий снимок заново
+    private volatile Set<String> changedSinceSnapshot;
+    // Отметка изменения не пересекается с подменой набора измененных кодов при сборке снимка
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private LinkSnapshot cachedSnapshot;
 
     public ShorteningService() {
-        this.linkStorage = new ConcurrentHashMap<>();
-        loadFromFile();
-        System.out.println("Сервис ссылок инициализирован. Загружено: " +
-                linkStorage.size() + " ссылок");
+        this(LinkStorageFactory.create(AppConfig.getInstance()));
     }
 
-    private synchronized void saveToFile() {
-        try {
-            List<String> lines = new ArrayList<>();
-
-            for (ShortLink link : linkStorage.values()) {
-                String line = String.join("|",
-                        link.getShortCode(),
-                        link.getOriginalUrl(),
-                        link.getOwnerId().toString(),
-                        link.getCreatedAt().toString(),
-                        link.getExpiresAt().toString(),
-                        String.valueOf(link.getMaxClicks()),
-                        String.valueOf(link.getCurrentClicks()),
-                        String.valueOf(link.isActive())
-                );
-                lines.add(line);
-            }
-
-            Path filePath = Paths.get(STORAGE_FILE);
-            Files.write(filePath, lines,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.WRITE);
+    public ShorteningService(LinkStorage linkStorage) {
+        this.linkStorage = linkStorage;
 
-        } catch (IOException e) {
-            System.err.println("Ошибка сохранения ссылок: " + e.getMessage());
+        AppConfig config = AppConfig.getInstance();
+        this.expiryIndex = new ExpiryIndex(config.getExpiryPrecisionSeconds());
+        this.shortCodeGenerator = ShortCodeGenerator.create(config);
+        this.hotLinkCache = new HotLinkCache(config.getHotCacheCapacity());
+        this.dedupIndex = config.isDedupEnabled() ? new DedupIndex() : null;
+        this.rateLimits = new RateLimits(config.snapshot());
+        config.addChangeListener((oldConfig, newConfig) -> rateLimits.applyConfig(newConfig));
+        config.addChangeListener((oldConfig, newConfig) -> {
+            if (oldConfig.getHotCacheCapacity() != newConfig.getHotCacheCapacity()) {
+                hotLinkCache.resize(newConfig.getHotCacheCapacity());
+            }
+        });
+        this.persistence = new ShardedLinkPersistence(
+                linkStorage,
+                Paths.get(config.getStorageFile()),
+                Paths.get(config.getBinaryStorageFile()),
+                Paths.get(config.getJournalFile())
+        );
+        persistence.load();
+        for (ShortLink link : linkStorage) {
+            if (link.isActive() && link.getCurrentClicks() >= link.getMaxClicks()) {
+                link.setActive(false);
+            }
+            ownerIndex.add(link.getOwnerId(), link.getShortCode());
+            expiryIndex.add(link.getShortCode(), link.getExpiresAt());
+            if (dedupIndex != null && link.isActive()) {
+                dedupIndex.add(link);
+            }
+        }
+        this.codeFilter = config.isLookupFilterEnabled()
+                ? new LinkCodeFilter(linkStorage, filterCapacity(), config.getLookupFilterFalsePositiveRate())
+                : null;
+
+        this.clickJournal = new ClickJournal(
+                Paths.get(config.getClickJournalFile()),
+                linkStorage,
+                persistence::compact,
+                config.getClickFlushThreshold()
+        );
+        if (clickJournal.replay() > 0) {
+            checkpointClicks();
+        }
+        clickJournal.start(config.getClickFlushIntervalMillis(), config.getClickCheckpointIntervalSeconds());
+
+        if (config.isTrafficEnabled()) {
+            this.trafficStats = new TrafficStats(config.getTrafficMaxLinks());
+            this.clickEvents = new ClickEventStream(config.getTrafficRingCapacity());
+            clickEvents.addSink(trafficStats);
+            this.heavyHitters = config.isTopEnabled()
+                    ? new HeavyHitters(config.getTopCapacity(), config.getTopSketchWidth(),
+                            config.getTopDecaySeconds() * 1000L)
+                    : null;
+            if (heavyHitters != null) {
+                clickEvents.addSink(heavyHitters);
+            }
+            clickEvents.start();
+        } else {
+            this.trafficStats = null;
+            this.clickEvents = null;
+            this.heavyHitters = null;
         }
+        registerMetrics();
+
+        System.out.println("Сервис ссылок инициализирован. Загружено: " +
+                getLinkCount() + " ссылок");
     }
 
-    private synchronized void loadFromFile() {
-        Path filePath = Paths.get(STORAGE_FILE);
+    public String createShortLink(String originalUrl, UUID ownerId) {
+        checkCreateRate(ownerId, 1);
+        long start = System.nanoTime();
+        ConfigSnapshot config = AppConfig.getInstance().snapshot();
+
+        String error = validateUrl(originalUrl, config);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
 
-        if (!Files.exists(filePath)) {
-            return;
+        if (dedupIndex == null) {
+            String shortCode = createNewLink(originalUrl, ownerId, config);
+            CREATE_LATENCY.recordSince(start);
+            return shortCode;
         }
 
+        ReentrantLock dedupLock = dedupIndex.lockFor(ownerId, originalUrl);
+        dedupLock.lock();
         try {
-            List<String> lines = Files.readAllLines(filePath);
-            int loadedCount = 0;
-
-            for (String line : lines) {
-                try {
-                    String[] parts = line.split("\\|", 8);
-                    if (parts.length != 8) {
-                        System.err.println("Пропущена некорректная строка: " + line);
-                        continue;
-                    }
-
-                    ShortLink link = new ShortLink(
-                            parts[0],
-                            parts[1],
-                            UUID.fromString(parts[2]),
-                            LocalDateTime.parse(parts[3]),
-                            LocalDateTime.parse(parts[4]),
-                            Integer.parseInt(parts[5]),
-                            Integer.parseInt(parts[6]),
-                            Boolean.parseBoolean(parts[7])
-                    );
-
-                    linkStorage.put(parts[0], link);
-                    loadedCount++;
-
-                } catch (Exception e) {
-                    System.err.println("Ошибка парсинга строки: " + line);
-                    System.err.println("Причина: " + e.getMessage());
-                }
+            ShortLink existing = findReusableLink(originalUrl, ownerId);
+            if (existing != null) {
+                DEDUP_HITS.increment();
+                return existing.getShortCode();
             }
-
-        } catch (IOException e) {
-            System.err.println("Ошибка чтения файла ссылок: " + e.getMessage());
+            return createNewLink(originalUrl, ownerId, config);
+        } finally {
+            dedupLock.unlock();
+            CREATE_LATENCY.recordSince(start);
         }
     }
 
-    public String createShortLink(String originalUrl, UUID ownerId) {
-        if (originalUrl.length() > AppConfig.getInstance().getUrlMaxLength()) {
-            throw new IllegalArgumentException("URL слишком длинный");
-        }
-
+    private String createNewLink(String originalUrl, UUID ownerId, ConfigSnapshot config) {
         String shortCode;
+        // Счетчик не повторяет коды, проверка нужна для hash-генератора и кодов, созданных им раньше
         do {
-            shortCode = generateShortCode(originalUrl, ownerId);
-        } while (linkStorage.containsKey(shortCode));
-
-        AppConfig config = AppConfig.getInstance();
+            shortCode = shortCodeGenerator.generate(originalUrl, ownerId, config.getShortCodeLength());
+        } while (linkStorage.contains(shortCode));
 
         LocalDateTime now = LocalDateTime.now();
         ShortLink shortLink = new ShortLink(
@@ -119,17 +208,301 @@ public class ShorteningService {
                 true
         );
 
-        linkStorage.put(shortCode, shortLink);
-
-        saveToFile();
+        persistence.write(shortCode, () -> {
+            linkStorage.put(shortLink);
+            ownerIndex.add(ownerId, shortLink.getShortCode());
+            expiryIndex.add(shortLink.getShortCode(), shortLink.getExpiresAt());
+            if (dedupIndex != null) {
+                dedupIndex.add(shortLink);
+            }
+            if (codeFilter != null) {
+                codeFilter.add(shortLink.getShortCode());
+            }
+            markChanged(shortLink.getShortCode());
+            return LinkJournal.createRecord(shortLink);
+        });
 
         return shortCode;
     }
 
+    // Пакетное создание: конфигурация читается один раз, коды выдаются одним диапазоном,
+    // ссылки добавляются за один проход и сохраняются одной записью журнала (или одним
+    // снимком) на шард. Некорректные URL не прерывают пакет, а возвращаются с причиной отказа
+    public List<LinkCreationResult> createShortLinks(List<String> originalUrls, UUID ownerId) {
+        checkCreateRate(ownerId, originalUrls.size());
+        long start = System.nanoTime();
+        ConfigSnapshot config = AppConfig.getInstance().snapshot();
+
+        // Повторы ищутся и новые ссылки вставляются под блокировками всех URL пакета
+        BitSet dedupStripes = dedupIndex != null ? dedupIndex.stripesOf(ownerId, originalUrls) : null;
+        if (dedupStripes != null) {
+            dedupIndex.lock(dedupStripes);
+        }
+        try {
+            return createLinks(originalUrls, ownerId, config, start);
+        } finally {
+            if (dedupStripes != null) {
+                dedupIndex.unlock(dedupStripes);
+            }
+        }
+    }
+
+    private List<LinkCreationResult> createLinks(List<String> originalUrls, UUID ownerId,
+                                                 ConfigSnapshot config, long start) {
+        LinkCreationResult[] results = new LinkCreationResult[originalUrls.size()];
+        List<String> validUrls = new ArrayList<>(originalUrls.size());
+        int[] positions = new int[originalUrls.size()];
+        // Повторы URL внутри пакета: позиция -> индекс первого вхождения в validUrls
+        Map<Integer, Integer> repeats = new HashMap<>();
+        Map<String, Integer> firstInBatch = dedupIndex != null ? new HashMap<>() : null;
+        for (int i = 0; i < results.length; i++) {
+            String originalUrl = originalUrls.get(i);
+            String error = validateUrl(originalUrl, config);
+            if (error != null) {
+                results[i] = LinkCreationResult.rejected(originalUrl, error);
+                continue;
+            }
+
+            if (firstInBatch != null) {
+                ShortLink existing = findReusableLink(originalUrl, ownerId);
+                if (existing != null) {
+                    DEDUP_HITS.increment();
+                    results[i] = LinkCreationResult.reused(originalUrl, existing.getShortCode());
+                    continue;
+                }
+                Integer first = firstInBatch.putIfAbsent(originalUrl, validUrls.size());
+                if (first != null) {
+                    DEDUP_HITS.increment();
+                    repeats.put(i, first);
+                    continue;
+                }
+            }
+
+            positions[validUrls.size()] = i;
+            validUrls.add(originalUrl);
+        }
+
+        int codeLength = config.getShortCodeLength();
+        List<String> codes = shortCodeGenerator.generateAll(validUrls, ownerId, codeLength);
+        Set<String> batchCodes = new HashSet<>(codes.size() * 4 / 3 + 1);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusHours(config.getDefaultTtlHours());
+        List<ShortLink> links = new ArrayList<>(validUrls.size());
+        for (int i = 0; i < validUrls.size(); i++) {
+            String originalUrl = validUrls.get(i);
+            String shortCode = codes.get(i);
+            while (linkStorage.contains(shortCode) || batchCodes.contains(shortCode)) {
+                shortCode = shortCodeGenerator.generate(originalUrl, ownerId, codeLength);
+            }
+            batchCodes.add(shortCode);
+
+            links.add(new ShortLink(shortCode, originalUrl, ownerId, now, expiresAt,
+                    config.getDefaultMaxClicks(), 0, true));
+            results[positions[i]] = LinkCreationResult.created(originalUrl, shortCode);
+        }
+        for (Map.Entry<Integer, Integer> repeat : repeats.entrySet()) {
+            ShortLink first = links.get(repeat.getValue());
+            results[repeat.getKey()] = LinkCreationResult.reused(first.getOriginalUrl(), first.getShortCode());
+        }
+
+        persistence.writeAll(links, part -> {
+            List<String> records = new ArrayList<>(part.size());
+            for (ShortLink link : part) {
+                linkStorage.put(link);
+                ownerIndex.add(ownerId, link.getShortCode());
+                expiryIndex.add(link.getShortCode(), link.getExpiresAt());
+                if (dedupIndex != null) {
+                    dedupIndex.add(link);
+                }
+                if (codeFilter != null) {
+                    codeFilter.add(link.getShortCode());
+                }
+                markChanged(link.getShortCode());
+                records.add(LinkJournal.createRecord(link));
+            }
+            return records;
+        });
+
+        CREATE_BATCH_LATENCY.recordSince(start);
+        BATCH_CREATED_LINKS.add(links.size());
+        return Arrays.asList(results);
+    }
+
+    // Добавляет готовые ссылки (загрузка из файла) одной записью журнала на шард.
+    // Ссылки с уже занятыми кодами пропускаются; возвращает число добавленных
+    public int importLinks(List<ShortLink> links) {
+        if (dedupIndex == null) {
+            return insertLinks(links).size();
+        }
+
+        // Шарды пакета пишутся параллельно, поэтому индекс повторов заполняется после записи,
+        // под блокировками всех пар (владелец, URL) пакета
+        BitSet dedupStripes = dedupIndex.stripesOfLinks(links);
+        dedupIndex.lock(dedupStripes);
+        try {
+            Queue<ShortLink> added = insertLinks(links);
+            for (ShortLink link : added) {
+                // Действующую ссылку с тем же URL загруженная не вытесняет
+                if (link.isActive() && findReusableLink(link.getOriginalUrl(), link.getOwnerId()) == null) {
+                    dedupIndex.add(link);
+                }
+            }
+            return added.size();
+        } finally {
+            dedupIndex.unlock(dedupStripes);
+        }
+    }
+
+    private Queue<ShortLink> insertLinks(List<ShortLink> links) {
+        Queue<ShortLink> added = new ConcurrentLinkedQueue<>();
+
+        persistence.writeAll(links, part -> {
+            List<String> records = new ArrayList<>(part.size());
+            for (ShortLink link : part) {
+                if (linkStorage.contains(link.getShortCode())) {
+                    continue;
+                }
+                if (link.isActive() && link.getCurrentClicks() >= link.getMaxClicks()) {
+                    link.setActive(false);
+                }
+                linkStorage.put(link);
+                ownerIndex.add(link.getOwnerId(), link.getShortCode());
+                expiryIndex.add(link.getShortCode(), link.getExpiresAt());
+                if (codeFilter != null) {
+                    codeFilter.add(link.getShortCode());
+                }
+                markChanged(link.getShortCode());
+                records.add(LinkJournal.createRecord(link));
+                added.add(link);
+            }
+            return records;
+        });
+
+        return added;
+    }
+
+    // Каждая ссылка расходует маркер, в том числе в пакете, иначе пакетами можно было бы
+    // обойти ограничение. Пакет больше ratelimit.create.burst не пройдет никогда и отклоняется сразу
+    private void checkCreateRate(UUID ownerId, int links) {
+        int maxBatch = rateLimits.getMaxCreateBatch();
+        if (links > maxBatch) {
+            CREATE_RATE_LIMITED.increment();
+            throw new RateLimitExceededException("Пакет из " + links + " ссылок больше допустимого (" + maxBatch +
+                    ", ratelimit.create.burst). Разбейте файл на части");
+        }
+        if (!rateLimits.tryCreate(ownerId, links)) {
+            CREATE_RATE_LIMITED.increment();
+            throw CREATE_LIMIT_EXCEEDED;
+        }
+    }
+
+    // Действующая ссылка владельца с тем же URL: активна, срок не истек и переходы остались
+    private ShortLink findReusableLink(String originalUrl, UUID ownerId) {
+        if (dedupIndex == null) {
+            return null;
+        }
+
+        String code = dedupIndex.find(ownerId, originalUrl);
+        if (code == null) {
+            return null;
+        }
+
+        ShortLink link = linkStorage.get(code);
+        if (link == null || !link.isOwnedBy(ownerId) || !link.getOriginalUrl().equals(originalUrl)) {
+            return null;
+        }
+
+        long nowSecond = ShortLink.toEpochSecond(LocalDateTime.now());
+        boolean usable = link.isActive()
+                && link.getExpiresAtEpochSecond() > nowSecond
+                && link.getCurrentClicks() < link.getMaxClicks();
+        return usable ? link : null;
+    }
+
+    // Возвращает причину отказа или null. URL пишется полем строки файла ссылок
+    // с разделителем '|' и уходит в заголовок Location, поэтому '|' и управляющие символы запрещены
+    public static String validateUrl(String originalUrl, ConfigSnapshot config) {
+        if (originalUrl == null || originalUrl.isBlank()) {
+            return "пустой URL";
+        }
+        if (!originalUrl.startsWith("http://") && !originalUrl.startsWith("https://")) {
+            return "URL должен начинаться с http:// или https://";
+        }
+        if (originalUrl.length() > config.getUrlMaxLength()) {
+            return "URL слишком длинный";
+        }
+        for (int i = 0; i < originalUrl.length(); i++) {
+            char c = originalUrl.charAt(i);
+            if (c == '|' || Character.isISOControl(c)) {
+                return "недопустимый символ в URL";
+            }
+        }
+        return null;
+    }
+
     public ShortLink getShortLink(String shortCode) {
+        if (isFilteredOut(shortCode)) {
+            return null;
+        }
         return linkStorage.get(shortCode);
     }
 
+    // Ссылка с готовыми для перехода данными; популярные коды отдаются из кэша.
+    // Коды, которых точно нет, отсеиваются фильтром до кэша и хранилища
+    public CachedLink getCachedLink(String shortCode) {
+        if (isFilteredOut(shortCode)) {
+            return null;
+        }
+        CachedLink link = hotLinkCache.get(shortCode, linkStorage::get);
+        if (link == null && codeFilter != null) {
+            FILTER_PASSED_MISSING.increment();
+        }
+        return link;
+    }
+
+    // false, если кода точно нет; проверка не обращается к хранилищу
+    public boolean mightContain(String shortCode) {
+        return !isFilteredOut(shortCode);
+    }
+
+    private boolean isFilteredOut(String shortCode) {
+        if (codeFilter == null || codeFilter.mightContain(shortCode)) {
+            return false;
+        }
+        FILTERED_LOOKUPS.increment();
+        return true;
+    }
+
+    // Перестраивает фильтр кодов по текущему хранилищу, убирая из него удаленные коды.
+    // Поиск и создание ссылок во время перестроения не блокируются
+    public void rebuildCodeFilter() {
+        if (codeFilter == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        codeFilter.rebuild(linkStorage, filterCapacity());
+        FILTER_REBUILD_LATENCY.recordSince(start);
+    }
+
+    public boolean isCodeFilterEnabled() {
+        return codeFilter != null;
+    }
+
+    // Запас вдвое, чтобы до следующего перестроения фильтр рос без новых ступеней
+    private int filterCapacity() {
+        return (int) Math.min(Integer.MAX_VALUE, linkStorage.size() * 2L);
+    }
+
+    public RateLimits getRateLimits() {
+        return rateLimits;
+    }
+
+    public HotLinkCache getHotLinkCache() {
+        return hotLinkCache;
+    }
+
     public boolean updateLink(String shortCode, UUID ownerId,
                               Integer newMaxClicks, Integer newTtlHours) {
         ShortLink link = linkStorage.get(shortCode);
@@ -138,12 +511,10 @@ public class ShorteningService {
             return false;
         }
 
-        if (!link.getOwnerId().equals(ownerId)) {
+        if (!link.isOwnedBy(ownerId)) {
             return false;
         }
 
-        boolean updated = false;
-
         if (newMaxClicks != null) {
             if (newMaxClicks <= 0) {
                 return false;
@@ -152,27 +523,35 @@ public class ShorteningService {
             if (newMaxClicks < link.getCurrentClicks()) {
                 return false;
             }
+        }
 
-            link.setMaxClicks(newMaxClicks);
-            updated = true;
+        if (newTtlHours != null && newTtlHours <= 0) {
+            return false;
         }
 
-        if (newTtlHours != null) {
-            if (newTtlHours <= 0) {
-                return false;
+        boolean updated = newMaxClicks != null || newTtlHours != null;
+
+        withDedupLock(link, () -> persistence.write(shortCode, () -> {
+            if (newMaxClicks != null) {
+                link.updateMaxClicks(newMaxClicks);
             }
 
-            link.setExpiresAt(LocalDateTime.now().plusHours(newTtlHours));
-            updated = true;
-        }
+            if (newTtlHours != null) {
+                LocalDateTime oldExpiresAt = link.getExpiresAt();
+                link.setExpiresAt(LocalDateTime.now().plusHours(newTtlHours));
+                expiryIndex.move(shortCode, oldExpiresAt, link.getExpiresAt());
+            }
 
-        if (!link.isActive() && link.getCurrentClicks() < link.getMaxClicks()) {
-            link.setActive(true);
-        }
+            link.reactivateIfClicksLeft();
+            // Снова активная ссылка возвращается в индекс повторов, если URL не занят другой действующей
+            if (dedupIndex != null && link.isActive()
+                    && findReusableLink(link.getOriginalUrl(), ownerId) == null) {
+                dedupIndex.add(link);
+            }
+            hotLinkCache.invalidate(shortCode);
 
-        if (updated) {
-            saveToFile();
-        }
+            return updated ? LinkJournal.updateRecord(link) : null;
+        }));
 
         return updated;
     }
@@ -184,54 +563,270 @@ public class ShorteningService {
             return false;
         }
 
-        if (!link.getOwnerId().equals(ownerId)) {
+        if (!link.isOwnedBy(ownerId)) {
             return false;
         }
 
-        linkStorage.remove(shortCode);
-        saveToFile();
+        withDedupLock(link, () -> persistence.write(shortCode, () -> {
+            linkStorage.remove(shortCode);
+            ownerIndex.remove(ownerId, shortCode);
+            if (dedupIndex != null) {
+                dedupIndex.remove(link);
+            }
+            expiryIndex.remove(shortCode, link.getExpiresAt());
+            hotLinkCache.invalidate(shortCode);
+            markChanged(shortCode);
+            return LinkJournal.deleteRecord(shortCode);
+        }));
         return true;
     }
 
-    public Map<String, ShortLink> getAllLinks() {
-        return new HashMap<>(linkStorage);
+    public List<ShortLink> getLinksByOwner(UUID ownerId) {
+        Set<String> codes = ownerIndex.getCodes(ownerId);
+        List<ShortLink> links = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            ShortLink link = linkStorage.get(code);
+            if (link != null) {
+                links.add(link);
+            }
+        }
+        return links;
+    }
+
+    public int countLinksByOwner(UUID ownerId) {
+        return ownerIndex.count(ownerId);
+    }
+
+    public Set<UUID> getOwnerIds() {
+        return ownerIndex.getOwners();
+    }
+
+    // Деактивирует ссылки, срок которых истек к моменту now. Просматриваются только
+    // ссылки из наступивших корзин индекса сроков, а не все хранилище
+    public List<ShortLink> expireDueLinks(LocalDateTime now) {
+        List<ShortLink> expired = new ArrayList<>();
+
+        for (String code : expiryIndex.pollDue(now)) {
+            ShortLink link = linkStorage.get(code);
+            if (link == null) {
+                continue;
+            }
+
+            if (!link.getExpiresAt().isBefore(now)) {
+                expiryIndex.add(code, link.getExpiresAt());
+                continue;
+            }
+
+            if (link.isActive()) {
+                link.setActive(false);
+                expired.add(link);
+            }
+            if (dedupIndex != null) {
+                withDedupLock(link, () -> dedupIndex.remove(link));
+            }
+        }
+        return expired;
     }
 
-    private String generateShortCode(String originalUrl, UUID ownerId) {
-        String input = originalUrl + ownerId.toString() + System.currentTimeMillis();
+    // Изменения индекса повторов идут под блокировкой пары (владелец, URL), как поиск и
+    // создание в createShortLink. Блокировка берется раньше блокировок сохранения
+    private void withDedupLock(ShortLink link, Runnable action) {
+        if (dedupIndex == null) {
+            action.run();
+            return;
+        }
+
+        ReentrantLock dedupLock = dedupIndex.lockFor(link.getOwnerId(), link.getOriginalUrl());
+        dedupLock.lock();
         try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(input.getBytes());
+            action.run();
+        } finally {
+            dedupLock.unlock();
+        }
+    }
+
+    // Слабо согласованный обход без копирования хранилища: видны все ссылки,
+    // существовавшие на начало обхода и не удаленные во время него
+    public void forEachLink(Consumer<ShortLink> action) {
+        linkStorage.forEach(action);
+    }
+
+    // Обход с фильтром: предикат проверяется прямо при обходе хранилища, без промежуточных коллекций
+    public void scan(Predicate<ShortLink> filter, Consumer<ShortLink> action) {
+        linkStorage.forEach(link -> {
+            if (filter.test(link)) {
+                action.accept(link);
+            }
+        });
+    }
+
+    public long countLinks(Predicate<ShortLink> filter) {
+        LongAdder count = new LongAdder();
+        scan(filter, link -> count.increment());
+        return count.sum();
+    }
 
-            int codeLength = AppConfig.getInstance().getShortCodeLength();
-            String hash = bytesToHex(digest);
+    // Поток ссылок с той же слабой согласованностью, что и forEachLink.
+    // Параллельный поток делится по шардам хранилища
+    public Stream<ShortLink> streamLinks(boolean parallel) {
+        return linkStorage.stream(parallel);
+    }
+
+    public int getLinkCount() {
+        return linkStorage.size();
+    }
 
-            if (codeLength > hash.length()) {
-                codeLength = hash.length();
+    // Согласованный набор ссылок на момент вызова. Пока ссылки не создавались и не удалялись,
+    // повторные вызовы возвращают тот же снимок; иначе следующая версия перечитывает только
+    // измененные коды и копирует только их сегменты
+    public synchronized LinkSnapshot snapshot() {
+        LinkSnapshot snapshot = cachedSnapshot;
+        Set<String> changed;
+        snapshotLock.writeLock().lock();
+        try {
+            changed = changedSinceSnapshot;
+            if (snapshot != null && changed != null && changed.isEmpty()) {
+                return snapshot;
             }
+            // Изменения, отмеченные с этого момента, войдут в следующую версию
+            changedSinceSnapshot = ConcurrentHashMap.newKeySet();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+
+        long nextVersion = snapshot != null ? snapshot.getVersion() + 1 : 0;
+        snapshot = snapshot != null && changed != null
+                ? snapshot.withChanges(nextVersion, changed, linkStorage)
+                : LinkSnapshot.of(nextVersion, linkStorage);
+        cachedSnapshot = snapshot;
+        return snapshot;
+    }
+
+    // Копирует все ссылки; вместо нее forEachLink, scan, streamLinks или snapshot
+    @Deprecated
+    public Map<String, ShortLink> getAllLinks() {
+        LinkSnapshot snapshot = snapshot();
+        Map<String, ShortLink> links = new HashMap<>(snapshot.size() * 4 / 3 + 1);
+        snapshot.forEach(link -> links.put(link.getShortCode(), link));
+        return links;
+    }
+
+    // Вызывается после изменения хранилища, поэтому снимок, собранный после отметки, его увидит
+    private void markChanged(String shortCode) {
+        if (changedSinceSnapshot == null) {
+            return;
+        }
 
-            return hash.substring(0, codeLength);
-        } catch (Exception e) {
-            return UUID.randomUUID().toString()
-                    .replace("-", "")
-                    .substring(0, Math.min(AppConfig.getInstance().getShortCodeLength(), 32));
+        snapshotLock.readLock().lock();
+        try {
+            Set<String> changed = changedSinceSnapshot;
+            if (changed != null && changed.add(shortCode)
+                    && changed.size() > Math.max(SNAPSHOT_MIN_TRACKED_CHANGES, linkStorage.size() / 4)) {
+                changedSinceSnapshot = null;
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
         }
     }
+
     public void incrementClickCount(String shortCode) {
         ShortLink link = linkStorage.get(shortCode);
         if (link != null) {
-            link.setCurrentClicks(link.getCurrentClicks() + 1);
-            saveToFile();
+            link.addClicks(1);
+            recordClick(link);
+        }
+    }
+
+    // Переход уже учтен в самой ссылке, здесь он только ставится в очередь на сохранение
+    // и публикуется в поток событий для статистики трафика
+    public void recordClick(ShortLink link) {
+        clickJournal.record(link.getShortCode());
+        if (clickEvents != null) {
+            clickEvents.publish(link.getShortCode(), System.currentTimeMillis());
+        }
+    }
+
+    // Поток событий переходов или null, если traffic.enabled выключен
+    public ClickEventStream getClickEvents() {
+        return clickEvents;
+    }
+
+    // Статистика трафика по времени или null, если traffic.enabled выключен
+    public TrafficStats getTrafficStats() {
+        return trafficStats;
+    }
+
+    // Самые посещаемые коды за последнее время или null, если список выключен
+    public HeavyHitters getHeavyHitters() {
+        return heavyHitters;
+    }
+
+    public void close() {
+        if (clickEvents != null) {
+            clickEvents.close();
         }
+        clickJournal.close();
+        persistence.close();
+        linkStorage.close();
     }
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) hexString.append('0');
-            hexString.append(hex);
+
+    private void registerMetrics() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("urlshortener_links", "Ссылок в хранилище", linkStorage::size);
+        metrics.gauge("urlshortener_cache_size", "Ссылок в кэше переходов", hotLinkCache::size);
+        metrics.gauge("urlshortener_rate_limit_create_buckets", "Корзин ограничения частоты создания ссылок",
+                rateLimits::getCreateBuckets);
+        metrics.gauge("urlshortener_rate_limit_redirect_buckets", "Корзин ограничения частоты переходов",
+                rateLimits::getRedirectBuckets);
+        if (dedupIndex != null) {
+            metrics.gauge("urlshortener_dedup_entries", "Записей в индексе повторных сокращений",
+                    dedupIndex::size);
+        }
+        if (trafficStats != null) {
+            metrics.gauge("urlshortener_traffic_tracked_links", "Ссылок со счетчиками трафика",
+                    trafficStats::getTrackedLinks);
+            metrics.counterFunction("urlshortener_traffic_untracked_clicks_total",
+                    "Переходы по ссылкам сверх лимита счетчиков трафика", trafficStats::getUntrackedClicks);
         }
-        return hexString.toString();
+        if (heavyHitters != null) {
+            // /_/metrics открыт без авторизации, поэтому серии помечены местом в рейтинге, а не кодом:
+            // коды ссылок знают только их владельцы. Сами коды показывает команда top
+            int exported = AppConfig.getInstance().getTopMetricsSize();
+            metrics.labeledGauge("urlshortener_top_link_clicks",
+                    "Оценка недавних переходов по самым посещаемым ссылкам", "rank", () -> {
+                        Map<String, Long> top = new LinkedHashMap<>();
+                        int rank = 0;
+                        for (TopLink link : heavyHitters.getTop(exported)) {
+                            top.put(String.valueOf(++rank), link.getEstimate());
+                        }
+                        return top;
+                    });
+            metrics.gauge("urlshortener_top_sketch_bytes", "Память sketch самых посещаемых кодов",
+                    heavyHitters::getSizeBytes);
+        }
+        if (codeFilter != null) {
+            metrics.gauge("urlshortener_code_filter_bytes", "Память фильтра кодов в байтах",
+                    codeFilter::getSizeBytes);
+            metrics.gauge("urlshortener_code_filter_insertions", "Кодов, добавленных в фильтр с последнего перестроения",
+                    codeFilter::getInsertions);
+            metrics.ratioGauge("urlshortener_code_filter_false_positive_ratio",
+                    "Ожидаемая доля ложных срабатываний фильтра кодов", codeFilter::getExpectedFalsePositiveRate);
+        }
+        metrics.counterFunction("urlshortener_cache_hits_total", "Попадания в кэш переходов",
+                hotLinkCache::getHits);
+        metrics.counterFunction("urlshortener_cache_misses_total", "Промахи кэша переходов",
+                hotLinkCache::getMisses);
+        metrics.counterFunction("urlshortener_cache_evictions_total", "Вытеснения из кэша переходов",
+                hotLinkCache::getEvictions);
+        metrics.counterFunction("urlshortener_cache_rejections_total",
+                "Ссылки, не допущенные в кэш по частоте", hotLinkCache::getRejections);
+    }
 
+    private void checkpointClicks() {
+        try {
+            clickJournal.checkpoint();
+        } catch (IOException e) {
+            System.err.println("Ошибка контрольной точки переходов: " + e.getMessage());
+        }
     }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.urlshortener.core.service;
 
 import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.traffic.HeavyHitters;
+import com.urlshortener.core.traffic.LinkTraffic;
+import com.urlshortener.core.traffic.TopLink;
+import com.urlshortener.core.traffic.TrafficStats;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class StatisticService {
     private final ShorteningService shorteningService;
@@ -13,9 +16,28 @@ public class StatisticService {
     }
 
     public List<ShortLink> getUserLinks(UUID userId) {
-        return shorteningService.getAllLinks().values().stream()
-                .filter(link -> link.getOwnerId().equals(userId))
-                .collect(Collectors.toList());
+        return shorteningService.getLinksByOwner(userId);
+    }
+
+    public int countUserLinks(UUID userId) {
+        return shorteningService.countLinksByOwner(userId);
+    }
+
+    // Переходы по ссылке за последние минуты и часы или null, если статистика трафика выключена
+    public LinkTraffic getLinkTraffic(String shortCode) {
+        TrafficStats trafficStats = shorteningService.getTrafficStats();
+        return trafficStats == null ? null : trafficStats.getTraffic(shortCode, System.currentTimeMillis());
+    }
+
+    public LinkTraffic getTotalTraffic() {
+        TrafficStats trafficStats = shorteningService.getTrafficStats();
+        return trafficStats == null ? null : trafficStats.getTotalTraffic(System.currentTimeMillis());
+    }
+
+    // До limit самых посещаемых кодов за последнее время или null, если список выключен
+    public List<TopLink> getTopLinks(int limit) {
+        HeavyHitters heavyHitters = shorteningService.getHeavyHitters();
+        return heavyHitters == null ? null : heavyHitters.getTop(limit);
     }
 
     public String getLinkInfo(String shortCode, UUID userId) {
@@ -24,11 +46,12 @@ public class StatisticService {
             return "Ссылка не найдена";
         }
 
-        if (!link.getOwnerId().equals(userId)) {
+        if (!link.isOwnedBy(userId)) {
             return "Эта ссылка принадлежит другому пользователю";
         }
 
-        return String.format(
+        LinkTraffic traffic = getLinkTraffic(shortCode);
+        String info = String.format(
                 "Ссылка: %s\n" +
                         "Оригинальный URL: %s\n" +
                         "Создана: %s\n" +
@@ -43,5 +66,6 @@ public class StatisticService {
                 link.getMaxClicks(),
                 link.isActive() ? "активна" : "неактивна"
         );
+        return traffic == null ? info : info + "\nТрафик: " + traffic;
     }
 }
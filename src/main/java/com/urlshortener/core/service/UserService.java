@@ -61,9 +61,7 @@ public class UserService {
             userIds.add(currentUserId);
         }
 
-        shorteningService.getAllLinks().values().stream()
-                .map(link -> link.getOwnerId())
-                .forEach(userIds::add);
+        userIds.addAll(shorteningService.getOwnerIds());
 
         return new ArrayList<>(userIds);
     }
@@ -0,0 +1,58 @@
+package com.urlshortener.core.shortcode;
+
+import java.util.Arrays;
+
+public final class Base62 {
+    public static final int MAX_LENGTH = 10;
+
+    private static final char[] ALPHABET =
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    private static final int[] DIGITS = new int[128];
+
+    static {
+        Arrays.fill(DIGITS, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DIGITS[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base62() {
+    }
+
+    // Число кодов заданной длины: 62^length
+    public static long capacity(int length) {
+        long capacity = 1;
+        for (int i = 0; i < length; i++) {
+            capacity *= ALPHABET.length;
+        }
+        return capacity;
+    }
+
+    // Кодирует value в строку ровно из length символов, дополняя ведущими '0'
+    public static String encode(long value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value % ALPHABET.length)];
+            value /= ALPHABET.length;
+        }
+        return new String(chars);
+    }
+
+    // Возвращает -1, если строка не является base62-числом длиной до MAX_LENGTH
+    public static long decode(CharSequence text) {
+        if (text.length() == 0 || text.length() > MAX_LENGTH) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * ALPHABET.length + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,172 @@
+package com.urlshortener.core.shortcode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Коды из монотонного счетчика: значение счетчика переставляется сетью Фейстеля
+// в пределах [0, 62^length) и кодируется в base62. Перестановка взаимно однозначна,
+// поэтому разные значения счетчика дают разные коды и повторная генерация не нужна.
+// Счетчик резервируется блоками в файле, так что после перезапуска значения не повторяются.
+// Ключ перестановки случайный: он создается при первом запуске и хранится второй строкой
+// файла счетчика, иначе по исходникам коды можно было бы обратить в номера ссылок.
+// Явно заданный ключ (seedOverride) заменяет сохраненный
+public class CounterShortCodeGenerator implements ShortCodeGenerator {
+    private static final int ROUNDS = 4;
+
+    private final Path counterFile;
+    private final long blockSize;
+    private final long seed;
+    private final long[] roundKeys = new long[ROUNDS];
+    private final AtomicLong next;
+    private volatile long reservedLimit;
+
+    public CounterShortCodeGenerator(Path counterFile, Long seedOverride, int blockSize) {
+        this.counterFile = counterFile;
+        this.blockSize = Math.max(1, blockSize);
+
+        long start = 0;
+        Long storedSeed = null;
+        try {
+            if (Files.exists(counterFile)) {
+                List<String> lines = Files.readAllLines(counterFile, StandardCharsets.UTF_8);
+                start = lines.isEmpty() ? 0 : Long.parseLong(lines.get(0).trim());
+                storedSeed = lines.size() > 1 ? Long.valueOf(lines.get(1).trim()) : null;
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Не удалось прочитать счетчик коротких кодов: " + e.getMessage());
+        }
+
+        // Коды, выданные со старым ключом, могут совпасть с новыми; такие совпадения
+        // отсекает проверка существующего кода при создании ссылки
+        this.seed = seedOverride != null ? seedOverride
+                : storedSeed != null ? storedSeed
+                : new SecureRandom().nextLong();
+
+        long state = seed;
+        for (int i = 0; i < ROUNDS; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            roundKeys[i] = mix(state);
+        }
+
+        this.next = new AtomicLong(start);
+        this.reservedLimit = start;
+
+        if (storedSeed == null || storedSeed != seed) {
+            try {
+                writeCounterFile(start);
+            } catch (IOException e) {
+                System.err.println("Не удалось сохранить ключ коротких кодов: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String generate(String originalUrl, UUID ownerId, int length) {
+        int codeLength = Math.max(1, Math.min(length, Base62.MAX_LENGTH));
+        long capacity = Base62.capacity(codeLength);
+
+        long value = next.getAndIncrement();
+        if (value >= capacity) {
+            throw new IllegalStateException("Исчерпаны короткие коды длины " + codeLength);
+        }
+        if (value >= reservedLimit) {
+            reserveUpTo(value);
+        }
+
+        return Base62.encode(permute(value, capacity), codeLength);
+    }
+
+    // Весь диапазон значений пакета занимается одним сдвигом счетчика,
+    // файл счетчика переписывается не больше одного раза
+    @Override
+    public List<String> generateAll(List<String> originalUrls, UUID ownerId, int length) {
+        int count = originalUrls.size();
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+
+        int codeLength = Math.max(1, Math.min(length, Base62.MAX_LENGTH));
+        long capacity = Base62.capacity(codeLength);
+
+        long first = next.getAndAdd(count);
+        long last = first + count - 1;
+        if (last >= capacity) {
+            throw new IllegalStateException("Исчерпаны короткие коды длины " + codeLength);
+        }
+        if (last >= reservedLimit) {
+            reserveUpTo(last);
+        }
+
+        List<String> codes = new ArrayList<>(count);
+        for (long value = first; value <= last; value++) {
+            codes.add(Base62.encode(permute(value, capacity), codeLength));
+        }
+        return codes;
+    }
+
+    private synchronized void reserveUpTo(long value) {
+        long limit = reservedLimit;
+        if (value < limit) {
+            return;
+        }
+
+        while (limit <= value) {
+            limit += blockSize;
+        }
+
+        try {
+            writeCounterFile(limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить счетчик коротких кодов", e);
+        }
+        reservedLimit = limit;
+    }
+
+    private void writeCounterFile(long limit) throws IOException {
+        Files.write(counterFile, (limit + "\n" + seed + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.SYNC);
+    }
+
+    // Сеть Фейстеля на четном числе бит, покрывающем capacity; значения за пределами
+    // диапазона прогоняются повторно (cycle walking), что сохраняет биекцию на [0, capacity)
+    private long permute(long value, long capacity) {
+        int bits = 64 - Long.numberOfLeadingZeros(capacity - 1);
+        if ((bits & 1) == 1) {
+            bits++;
+        }
+        int halfBits = bits / 2;
+        long halfMask = (1L << halfBits) - 1;
+
+        long result = value;
+        do {
+            long left = result >>> halfBits;
+            long right = result & halfMask;
+            for (long key : roundKeys) {
+                long mixed = left ^ (mix(right ^ key) & halfMask);
+                left = right;
+                right = mixed;
+            }
+            result = (left << halfBits) | right;
+        } while (result >= capacity);
+
+        return result;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,43 @@
+package com.urlshortener.core.shortcode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+// Прежняя стратегия: первые символы hex-представления MD5(url + owner + время).
+// Возможны коллизии, поэтому вызывающий код проверяет занятость кода
+public class HashShortCodeGenerator implements ShortCodeGenerator {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int MAX_LENGTH = 32;
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    });
+
+    @Override
+    public String generate(String originalUrl, UUID ownerId, int length) {
+        int codeLength = Math.min(length, MAX_LENGTH);
+        MessageDigest md = MD5.get();
+
+        if (md == null) {
+            return UUID.randomUUID().toString()
+                    .replace("-", "")
+                    .substring(0, codeLength);
+        }
+
+        String input = originalUrl + ownerId.toString() + System.currentTimeMillis();
+        byte[] digest = md.digest(input.getBytes(StandardCharsets.UTF_8));
+
+        char[] code = new char[codeLength];
+        for (int i = 0; i < codeLength; i++) {
+            int b = digest[i >> 1] & 0xff;
+            code[i] = HEX[(i & 1) == 0 ? b >>> 4 : b & 0x0f];
+        }
+        return new String(code);
+    }
+}
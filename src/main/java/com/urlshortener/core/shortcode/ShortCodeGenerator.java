@@ -0,0 +1,42 @@
+package com.urlshortener.core.shortcode;
+
+import com.urlshortener.core.config.AppConfig;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public interface ShortCodeGenerator {
+
+    String generate(String originalUrl, UUID ownerId, int length);
+
+    // Коды для пакета ссылок, по одному на URL в том же порядке
+    default List<String> generateAll(List<String> originalUrls, UUID ownerId, int length) {
+        List<String> codes = new ArrayList<>(originalUrls.size());
+        for (String originalUrl : originalUrls) {
+            codes.add(generate(originalUrl, ownerId, length));
+        }
+        return codes;
+    }
+
+    static ShortCodeGenerator create(AppConfig config) {
+        String type = config.getShortCodeGenerator();
+
+        switch (type.trim().toLowerCase()) {
+            case "hash":
+                return new HashShortCodeGenerator();
+            case "counter":
+                return new CounterShortCodeGenerator(
+                        Paths.get(config.getShortCodeCounterFile()),
+                        config.getShortCodeCounterSeed(),
+                        config.getShortCodeCounterBlockSize());
+            default:
+                System.err.println("Неизвестный генератор кодов '" + type + "'. Используется counter.");
+                return new CounterShortCodeGenerator(
+                        Paths.get(config.getShortCodeCounterFile()),
+                        config.getShortCodeCounterSeed(),
+                        config.getShortCodeCounterBlockSize());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.urlshortener.core.storage;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Хранилище ссылок по короткому коду. Реализации потокобезопасны, обход слабо согласован:
+// видны ссылки, существовавшие на начало обхода и не удаленные во время него
+public interface LinkStorage extends Iterable<ShortLink> {
+
+    ShortLink get(String shortCode);
+
+    // Возвращает ссылку, которую заменила новая, или null
+    ShortLink put(ShortLink link);
+
+    ShortLink remove(String shortCode);
+
+    boolean contains(String shortCode);
+
+    int size();
+
+    void clear();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    default Stream<ShortLink> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+    @Override
+    default Spliterator<ShortLink> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), Spliterator.NONNULL | Spliterator.CONCURRENT);
+    }
+
+    // Освобождает ресурсы хранилища; после закрытия хранилище использовать нельзя
+    default void close() {
+    }
+}
@@ -0,0 +1,123 @@
+package com.urlshortener.core.storage;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Хранилище из N независимых шардов: код попадает в шард по своему хешу. У каждого шарда
+// своя таблица и свои блокировки, поэтому изменения в разных шардах не мешают друг другу
+public class ShardedLinkStorage implements LinkStorage {
+    private final LinkStorage[] shards;
+
+    public ShardedLinkStorage(LinkStorage[] shards) {
+        if (shards.length == 0) {
+            throw new IllegalArgumentException("Нужен хотя бы один шард");
+        }
+        this.shards = shards.clone();
+    }
+
+    // Номер шарда для кода. String.hashCode одинаков во всех JVM, поэтому раскладка
+    // файлов не зависит от запуска; менять формулу можно только вместе с перешардированием
+    public static int shardOf(String shortCode, int shardCount) {
+        int hash = shortCode.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & 0x7FFFFFFF) % shardCount;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public LinkStorage getShard(int index) {
+        return shards[index];
+    }
+
+    private LinkStorage shardFor(String shortCode) {
+        return shards[shardOf(shortCode, shards.length)];
+    }
+
+    @Override
+    public ShortLink get(String shortCode) {
+        return shardFor(shortCode).get(shortCode);
+    }
+
+    @Override
+    public ShortLink put(ShortLink link) {
+        return shardFor(link.getShortCode()).put(link);
+    }
+
+    @Override
+    public ShortLink remove(String shortCode) {
+        return shardFor(shortCode).remove(shortCode);
+    }
+
+    @Override
+    public boolean contains(String shortCode) {
+        return shardFor(shortCode).contains(shortCode);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (LinkStorage shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (LinkStorage shard : shards) {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public Iterator<ShortLink> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+            private Iterator<ShortLink> current = shards[next++].iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && next < shards.length) {
+                    current = shards[next++].iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public ShortLink next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public void forEach(Consumer<? super ShortLink> action) {
+        for (LinkStorage shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    // Параллельный обход делится в первую очередь по шардам
+    @Override
+    public Stream<ShortLink> stream(boolean parallel) {
+        Stream<LinkStorage> stream = Arrays.stream(shards);
+        return (parallel ? stream.parallel() : stream).flatMap(shard -> shard.stream(false));
+    }
+
+    @Override
+    public void close() {
+        for (LinkStorage shard : shards) {
+            shard.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.urlshortener.core.traffic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Ограниченный кольцевой буфер событий переходов: много производителей, один потребитель.
+// Производитель занимает ячейку CAS-ом позиции записи и публикует событие записью
+// порядкового номера ячейки. Блокировок нет; при заполненном буфере событие отбрасывается,
+// чтобы переход никогда не ждал статистику
+public class ClickEventRing {
+    private final int mask;
+    private final String[] codes;
+    private final long[] timestamps;
+    // Для ячейки i: pos - свободна для записи позиции pos, pos + 1 - событие pos опубликовано
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+    // Позиция чтения, публикуемая потребителем раз за проход, - только для оценки очереди
+    private volatile long consumed;
+
+    public ClickEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, Math.min(capacity, 1 << 30)) - 1) << 1;
+        this.mask = size - 1;
+        this.codes = new String[size];
+        this.timestamps = new long[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // Возвращает false, если буфер заполнен и событие отброшено
+    public boolean offer(String shortCode, long timestampMillis) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    codes[index] = shortCode;
+                    timestamps[index] = timestampMillis;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    // Передает получателю до limit опубликованных событий. Вызывается только одним потоком
+    public int drain(ClickEventSink sink, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+
+            String shortCode = codes[index];
+            long timestampMillis = timestamps[index];
+            codes[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+
+            sink.onClick(shortCode, timestampMillis);
+            drained++;
+        }
+        consumed = head;
+        return drained;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    // Приблизительное число событий, ожидающих потребителя
+    public long getBacklog() {
+        return Math.max(0, tail.get() - consumed);
+    }
+}
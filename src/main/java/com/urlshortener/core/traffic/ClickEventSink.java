@@ -0,0 +1,12 @@
+package com.urlshortener.core.traffic;
+
+// Получатель событий переходов. Вызывается только из потока-потребителя кольцевого буфера,
+// поэтому реализации могут обновлять свое состояние без синхронизации с другими получателями
+public interface ClickEventSink {
+
+    void onClick(String shortCode, long timestampMillis);
+
+    // Вызывается после каждого прохода потребителя, даже если событий не было
+    default void onTick(long nowMillis) {
+    }
+}
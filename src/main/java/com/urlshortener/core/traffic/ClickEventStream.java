@@ -0,0 +1,78 @@
+package com.urlshortener.core.traffic;
+
+import com.urlshortener.core.metrics.Metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Поток событий переходов: переходы публикуются в кольцевой буфер, а фоновый поток
+// раз в DRAIN_INTERVAL_MS забирает их пачками и раздает получателям
+public class ClickEventStream {
+    private static final long DRAIN_INTERVAL_MS = 10;
+    private static final int DRAIN_BATCH = 4096;
+    private static final LongAdder DROPPED_EVENTS = Metrics.getInstance().counter(
+            "urlshortener_click_events_dropped_total", "События переходов, отброшенные при заполненном буфере");
+
+    private final ClickEventRing ring;
+    private final List<ClickEventSink> sinks = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService consumer;
+
+    public ClickEventStream(int capacity) {
+        this.ring = new ClickEventRing(capacity);
+        this.consumer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "click-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Metrics.getInstance().gauge("urlshortener_click_events_backlog",
+                "События переходов, ожидающие обработки", ring::getBacklog);
+    }
+
+    public void addSink(ClickEventSink sink) {
+        sinks.add(sink);
+    }
+
+    public void start() {
+        consumer.scheduleWithFixedDelay(this::drainSafely, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Не блокирует: при заполненном буфере событие отбрасывается и учитывается в метрике
+    public void publish(String shortCode, long timestampMillis) {
+        if (!ring.offer(shortCode, timestampMillis)) {
+            DROPPED_EVENTS.increment();
+        }
+    }
+
+    private void dispatch(String shortCode, long timestampMillis) {
+        for (ClickEventSink sink : sinks) {
+            sink.onClick(shortCode, timestampMillis);
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            while (ring.drain(this::dispatch, DRAIN_BATCH) == DRAIN_BATCH) {
+                // Забираем накопившееся до конца, не дожидаясь следующего запуска
+            }
+            long now = System.currentTimeMillis();
+            for (ClickEventSink sink : sinks) {
+                sink.onTick(now);
+            }
+        } catch (Exception e) {
+            System.err.println("Ошибка обработки событий переходов: " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        consumer.shutdown();
+        try {
+            consumer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
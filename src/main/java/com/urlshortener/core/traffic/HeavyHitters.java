@@ -0,0 +1,194 @@
+package com.urlshortener.core.traffic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Самые посещаемые коды: частоты оцениваются Count-Min sketch с консервативным обновлением,
+// а min-куча хранит capacity кодов с наибольшей оценкой. Раз в decayMillis все счетчики
+// делятся пополам, поэтому список отражает недавнюю, а не накопленную популярность.
+// Память постоянна, переход стоит DEPTH обращений к sketch и O(log capacity) на куче.
+// Обновляется только потоком-потребителем событий; читатели получают снимок,
+// который публикуется раз в секунду
+public class HeavyHitters implements ClickEventSink {
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+    private static final long PUBLISH_INTERVAL_MS = 1000;
+
+    private final int[] sketch;
+    private final int widthMask;
+    private final int capacity;
+    private final long decayMillis;
+
+    private final Entry[] heap;
+    private final Map<String, Entry> entries;
+    private int size;
+    private long lastDecay;
+    private long lastPublish;
+    private volatile List<TopLink> published = Collections.emptyList();
+
+    public HeavyHitters(int capacity, int sketchWidth, long decayMillis) {
+        this.capacity = Math.max(1, capacity);
+        int width = Integer.highestOneBit(Math.max(16, Math.min(sketchWidth, 1 << 24)) - 1) << 1;
+        this.widthMask = width - 1;
+        this.sketch = new int[DEPTH * width];
+        this.decayMillis = decayMillis;
+        this.heap = new Entry[this.capacity];
+        this.entries = new HashMap<>(this.capacity * 2);
+    }
+
+    @Override
+    public void onClick(String shortCode, long timestampMillis) {
+        long estimate = increment(shortCode);
+
+        Entry entry = entries.get(shortCode);
+        if (entry != null) {
+            entry.count = estimate;
+            siftDown(entry.index);
+        } else if (size < capacity) {
+            entry = new Entry(shortCode, estimate);
+            entries.put(shortCode, entry);
+            heap[size] = entry;
+            entry.index = size;
+            siftUp(size++);
+        } else if (estimate > heap[0].count) {
+            entries.remove(heap[0].shortCode);
+            entry = new Entry(shortCode, estimate);
+            entries.put(shortCode, entry);
+            heap[0] = entry;
+            entry.index = 0;
+            siftDown(0);
+        }
+    }
+
+    @Override
+    public void onTick(long nowMillis) {
+        if (lastDecay == 0) {
+            lastDecay = nowMillis;
+        } else if (decayMillis > 0 && nowMillis - lastDecay >= decayMillis) {
+            lastDecay = nowMillis;
+            decay();
+        }
+
+        if (nowMillis - lastPublish >= PUBLISH_INTERVAL_MS) {
+            lastPublish = nowMillis;
+            publish();
+        }
+    }
+
+    // До limit кодов в порядке убывания оценки на момент последней публикации
+    public List<TopLink> getTop(int limit) {
+        List<TopLink> top = published;
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getSizeBytes() {
+        return (long) sketch.length * Integer.BYTES;
+    }
+
+    // Консервативное обновление: увеличиваются только минимальные счетчики ключа,
+    // что уменьшает переоценку редких кодов, делящих ячейки с популярными
+    private long increment(String shortCode) {
+        int hash = shortCode.hashCode();
+        int width = widthMask + 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, sketch[row * width + index(hash, row)]);
+        }
+
+        if (min == Integer.MAX_VALUE) {
+            return min;
+        }
+        for (int row = 0; row < DEPTH; row++) {
+            int cell = row * width + index(hash, row);
+            if (sketch[cell] == min) {
+                sketch[cell] = min + 1;
+            }
+        }
+        return min + 1L;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        h ^= h >>> 16;
+        return h & widthMask;
+    }
+
+    // Деление пополам сохраняет порядок в куче: функция монотонна
+    private void decay() {
+        for (int i = 0; i < sketch.length; i++) {
+            sketch[i] >>>= 1;
+        }
+        for (int i = 0; i < size; i++) {
+            heap[i].count >>>= 1;
+        }
+    }
+
+    private void publish() {
+        Entry[] snapshot = Arrays.copyOf(heap, size);
+        Arrays.sort(snapshot, Comparator.comparingLong((Entry entry) -> entry.count).reversed());
+
+        List<TopLink> top = new ArrayList<>(snapshot.length);
+        for (Entry entry : snapshot) {
+            if (entry.count > 0) {
+                top.add(new TopLink(entry.shortCode, entry.count));
+            }
+        }
+        published = Collections.unmodifiableList(top);
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(entry, index);
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(entry, index);
+    }
+
+    private void place(Entry entry, int index) {
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    private static final class Entry {
+        private final String shortCode;
+        private long count;
+        private int index;
+
+        private Entry(String shortCode, long count) {
+            this.shortCode = shortCode;
+            this.count = count;
+        }
+    }
+}
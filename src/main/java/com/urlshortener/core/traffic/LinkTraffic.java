@@ -0,0 +1,45 @@
+package com.urlshortener.core.traffic;
+
+// Переходы по ссылке (или по всем ссылкам) за последние окна времени на момент запроса
+public class LinkTraffic {
+    public static final LinkTraffic EMPTY = new LinkTraffic(0, 0, 0, 0);
+
+    private final long lastMinute;
+    private final long lastFiveMinutes;
+    private final long lastHour;
+    private final long lastDay;
+
+    public LinkTraffic(long lastMinute, long lastFiveMinutes, long lastHour, long lastDay) {
+        this.lastMinute = lastMinute;
+        this.lastFiveMinutes = lastFiveMinutes;
+        this.lastHour = lastHour;
+        this.lastDay = lastDay;
+    }
+
+    public long getLastMinute() {
+        return lastMinute;
+    }
+
+    public long getLastFiveMinutes() {
+        return lastFiveMinutes;
+    }
+
+    public long getLastHour() {
+        return lastHour;
+    }
+
+    public long getLastDay() {
+        return lastDay;
+    }
+
+    // Средняя скорость за последние пять минут
+    public double getPerMinuteRate() {
+        return lastFiveMinutes / 5.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("за текущую минуту: %d, за 5 минут: %d (%.1f/мин), за час: %d, за сутки: %d",
+                lastMinute, lastFiveMinutes, getPerMinuteRate(), lastHour, lastDay);
+    }
+}
@@ -0,0 +1,20 @@
+package com.urlshortener.core.traffic;
+
+// Код из списка самых посещаемых и оценка числа переходов по нему с учетом затухания
+public class TopLink {
+    private final String shortCode;
+    private final long estimate;
+
+    public TopLink(String shortCode, long estimate) {
+        this.shortCode = shortCode;
+        this.estimate = estimate;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public long getEstimate() {
+        return estimate;
+    }
+}
@@ -0,0 +1,64 @@
+package com.urlshortener.core.traffic;
+
+// Скользящие счетчики переходов: 60 корзин по минуте и 24 по часу. Корзина адресуется
+// номером минуты (часа) эпохи по модулю длины массива; при продвижении времени пройденные
+// корзины обнуляются. Память постоянна и не зависит от числа переходов
+final class TrafficCounter {
+    static final int MINUTES = 60;
+    static final int HOURS = 24;
+
+    private final int[] minutes = new int[MINUTES];
+    private final int[] hours = new int[HOURS];
+    private long lastMinute = Long.MIN_VALUE / 2;
+    private long lastHour = Long.MIN_VALUE / 2;
+
+    synchronized void add(long epochMinute) {
+        lastMinute = advance(minutes, lastMinute, epochMinute);
+        if (epochMinute > lastMinute - MINUTES) {
+            minutes[(int) Math.floorMod(epochMinute, (long) MINUTES)]++;
+        }
+
+        long epochHour = Math.floorDiv(epochMinute, MINUTES);
+        lastHour = advance(hours, lastHour, epochHour);
+        if (epochHour > lastHour - HOURS) {
+            hours[(int) Math.floorMod(epochHour, (long) HOURS)]++;
+        }
+    }
+
+    // Переходы за последние window минут, включая текущую неполную
+    synchronized long countMinutes(long nowMinute, int window) {
+        return sum(minutes, lastMinute, nowMinute, Math.min(window, MINUTES));
+    }
+
+    // Переходы за последние window часов, включая текущий неполный
+    synchronized long countHours(long nowHour, int window) {
+        return sum(hours, lastHour, nowHour, Math.min(window, HOURS));
+    }
+
+    // Все корзины устарели: переходов не было дольше суток
+    synchronized boolean isIdle(long nowMinute) {
+        return lastHour <= Math.floorDiv(nowMinute, MINUTES) - HOURS;
+    }
+
+    private static long advance(int[] buckets, long last, long now) {
+        if (now <= last) {
+            return last;
+        }
+
+        long steps = Math.min(now - last, buckets.length);
+        for (long step = 0; step < steps; step++) {
+            buckets[(int) Math.floorMod(now - step, (long) buckets.length)] = 0;
+        }
+        return now;
+    }
+
+    private static long sum(int[] buckets, long last, long now, int window) {
+        long total = 0;
+        for (long bucket = now - window + 1; bucket <= now; bucket++) {
+            if (bucket <= last && bucket > last - buckets.length) {
+                total += buckets[(int) Math.floorMod(bucket, (long) buckets.length)];
+            }
+        }
+        return total;
+    }
+}
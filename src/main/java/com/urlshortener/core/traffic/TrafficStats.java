@@ -0,0 +1,82 @@
+package com.urlshortener.core.traffic;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Почасовая и поминутная статистика переходов по ссылкам. Счетчики заводятся только для
+// ссылок, по которым были переходы за последние сутки, и не больше maxLinks штук; ссылки
+// сверх лимита учитываются только в общем трафике. Простаивающие сутки счетчики удаляются
+public class TrafficStats implements ClickEventSink {
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    private final ConcurrentHashMap<String, TrafficCounter> links = new ConcurrentHashMap<>();
+    private final TrafficCounter total = new TrafficCounter();
+    private final int maxLinks;
+    private final LongAdder untracked = new LongAdder();
+    private long lastSweepMinute;
+
+    public TrafficStats(int maxLinks) {
+        this.maxLinks = Math.max(0, maxLinks);
+    }
+
+    @Override
+    public void onClick(String shortCode, long timestampMillis) {
+        long minute = Math.floorDiv(timestampMillis, MILLIS_PER_MINUTE);
+        total.add(minute);
+
+        TrafficCounter counter = links.get(shortCode);
+        if (counter == null) {
+            if (links.size() >= maxLinks) {
+                untracked.increment();
+                return;
+            }
+            counter = links.computeIfAbsent(shortCode, code -> new TrafficCounter());
+        }
+        counter.add(minute);
+    }
+
+    @Override
+    public void onTick(long nowMillis) {
+        long minute = Math.floorDiv(nowMillis, MILLIS_PER_MINUTE);
+        if (minute == lastSweepMinute) {
+            return;
+        }
+
+        lastSweepMinute = minute;
+        Iterator<TrafficCounter> counters = links.values().iterator();
+        while (counters.hasNext()) {
+            if (counters.next().isIdle(minute)) {
+                counters.remove();
+            }
+        }
+    }
+
+    public LinkTraffic getTraffic(String shortCode, long nowMillis) {
+        TrafficCounter counter = links.get(shortCode);
+        return counter == null ? LinkTraffic.EMPTY : snapshot(counter, nowMillis);
+    }
+
+    public LinkTraffic getTotalTraffic(long nowMillis) {
+        return snapshot(total, nowMillis);
+    }
+
+    public int getTrackedLinks() {
+        return links.size();
+    }
+
+    // Переходы по ссылкам, для которых не хватило счетчиков
+    public long getUntrackedClicks() {
+        return untracked.sum();
+    }
+
+    private static LinkTraffic snapshot(TrafficCounter counter, long nowMillis) {
+        long minute = Math.floorDiv(nowMillis, MILLIS_PER_MINUTE);
+        long hour = Math.floorDiv(minute, TrafficCounter.MINUTES);
+        return new LinkTraffic(
+                counter.countMinutes(minute, 1),
+                counter.countMinutes(minute, 5),
+                counter.countMinutes(minute, TrafficCounter.MINUTES),
+                counter.countHours(hour, TrafficCounter.HOURS));
+    }
+}
@@ -0,0 +1,131 @@
+package com.urlshortener.core.transfer;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// CSV по RFC 4180: поле с запятой или кавычкой заключается в кавычки, кавычки внутри удваиваются.
+// Порядок колонок фиксирован и совпадает с HEADER
+final class CsvLine {
+    static final String HEADER = "code,url,owner,createdAt,expiresAt,maxClicks,clicks,active";
+
+    private static final int FIELD_COUNT = 8;
+
+    private CsvLine() {
+    }
+
+    static void write(ShortLink link, StringBuilder out) {
+        appendField(out, link.getShortCode());
+        out.append(',');
+        appendField(out, link.getOriginalUrl());
+        out.append(',').append(link.getOwnerId());
+        out.append(',').append(link.getCreatedAt());
+        out.append(',').append(link.getExpiresAt());
+        out.append(',').append(link.getMaxClicks());
+        out.append(',').append(link.getCurrentClicks());
+        out.append(',').append(link.isActive());
+    }
+
+    static ShortLink parse(String line) {
+        String[] fields = split(line);
+        return new ShortLink(
+                fields[0],
+                fields[1],
+                UUID.fromString(fields[2]),
+                LocalDateTime.parse(fields[3]),
+                LocalDateTime.parse(fields[4]),
+                Integer.parseInt(fields[5]),
+                Integer.parseInt(fields[6]),
+                parseBoolean(fields[7])
+        );
+    }
+
+    private static String[] split(String line) {
+        String[] fields = new String[FIELD_COUNT];
+        int count = 0;
+        int position = 0;
+
+        while (true) {
+            if (count == FIELD_COUNT) {
+                throw new IllegalArgumentException("больше " + FIELD_COUNT + " полей");
+            }
+
+            if (position < line.length() && line.charAt(position) == '"') {
+                StringBuilder field = new StringBuilder();
+                position++;
+                while (true) {
+                    int quote = line.indexOf('"', position);
+                    if (quote < 0) {
+                        throw new IllegalArgumentException("незакрытая кавычка");
+                    }
+                    field.append(line, position, quote);
+                    position = quote + 1;
+                    if (position < line.length() && line.charAt(position) == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                fields[count++] = field.toString();
+                if (position == line.length()) {
+                    break;
+                }
+                if (line.charAt(position) != ',') {
+                    throw new IllegalArgumentException("символы после закрывающей кавычки");
+                }
+                position++;
+            } else {
+                int comma = line.indexOf(',', position);
+                if (comma < 0) {
+                    fields[count++] = line.substring(position);
+                    break;
+                }
+                fields[count++] = line.substring(position, comma);
+                position = comma + 1;
+            }
+        }
+
+        if (count != FIELD_COUNT) {
+            throw new IllegalArgumentException("ожидается " + FIELD_COUNT + " полей, найдено " + count);
+        }
+        return fields;
+    }
+
+    private static boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("ожидается true или false: " + value);
+    }
+
+    private static void appendField(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
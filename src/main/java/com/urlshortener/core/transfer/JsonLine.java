@@ -0,0 +1,285 @@
+package com.urlshortener.core.transfer;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Ссылка как плоский JSON-объект в одну строку:
+// {"code":"..","url":"..","owner":"..","createdAt":"..","expiresAt":"..","maxClicks":10,"clicks":0,"active":true}
+// Разбор понимает только такие объекты: строки, числа и логические значения, поля в любом порядке,
+// незнакомые поля пропускаются
+final class JsonLine {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonLine() {
+    }
+
+    static void write(ShortLink link, StringBuilder out) {
+        out.append("{\"code\":");
+        appendString(out, link.getShortCode());
+        out.append(",\"url\":");
+        appendString(out, link.getOriginalUrl());
+        out.append(",\"owner\":\"").append(link.getOwnerId()).append('"');
+        out.append(",\"createdAt\":\"").append(link.getCreatedAt()).append('"');
+        out.append(",\"expiresAt\":\"").append(link.getExpiresAt()).append('"');
+        out.append(",\"maxClicks\":").append(link.getMaxClicks());
+        out.append(",\"clicks\":").append(link.getCurrentClicks());
+        out.append(",\"active\":").append(link.isActive());
+        out.append('}');
+    }
+
+    static ShortLink parse(String line) {
+        Parser parser = new Parser(line);
+        String code = null;
+        String url = null;
+        String owner = null;
+        String createdAt = null;
+        String expiresAt = null;
+        Long maxClicks = null;
+        Long clicks = null;
+        Boolean active = null;
+
+        parser.expect('{');
+        if (!parser.tryConsume('}')) {
+            do {
+                String key = parser.readString();
+                parser.expect(':');
+                switch (key) {
+                    case "code":
+                        code = parser.readString();
+                        break;
+                    case "url":
+                        url = parser.readString();
+                        break;
+                    case "owner":
+                        owner = parser.readString();
+                        break;
+                    case "createdAt":
+                        createdAt = parser.readString();
+                        break;
+                    case "expiresAt":
+                        expiresAt = parser.readString();
+                        break;
+                    case "maxClicks":
+                        maxClicks = parser.readLong();
+                        break;
+                    case "clicks":
+                        clicks = parser.readLong();
+                        break;
+                    case "active":
+                        active = parser.readBoolean();
+                        break;
+                    default:
+                        parser.skipValue();
+                }
+            } while (parser.tryConsume(','));
+            parser.expect('}');
+        }
+        parser.expectEnd();
+
+        return new ShortLink(
+                required(code, "code"),
+                required(url, "url"),
+                UUID.fromString(required(owner, "owner")),
+                LocalDateTime.parse(required(createdAt, "createdAt")),
+                LocalDateTime.parse(required(expiresAt, "expiresAt")),
+                Math.toIntExact(required(maxClicks, "maxClicks")),
+                Math.toIntExact(required(clicks, "clicks")),
+                required(active, "active")
+        );
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("нет поля " + field);
+        }
+        return value;
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        void expect(char expected) {
+            skipWhitespace();
+            if (position >= text.length() || text.charAt(position) != expected) {
+                throw error("ожидается '" + expected + "'");
+            }
+            position++;
+        }
+
+        boolean tryConsume(char expected) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expectEnd() {
+            skipWhitespace();
+            if (position != text.length()) {
+                throw error("лишние символы после объекта");
+            }
+        }
+
+        String readString() {
+            expect('"');
+            int start = position;
+            // Быстрый путь: строка без экранирования копируется одним substring
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (c == '"') {
+                    return text.substring(start, position++);
+                }
+                if (c == '\\') {
+                    break;
+                }
+                position++;
+            }
+
+            StringBuilder value = new StringBuilder(text.length() - start);
+            value.append(text, start, position);
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escaped);
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("неполная последовательность \\u");
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        throw error("неизвестная последовательность \\" + escaped);
+                }
+            }
+            throw error("незакрытая строка");
+        }
+
+        long readLong() {
+            skipWhitespace();
+            int start = position;
+            if (position < text.length() && text.charAt(position) == '-') {
+                position++;
+            }
+            while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("ожидается число");
+            }
+            return Long.parseLong(text.substring(start, position));
+        }
+
+        boolean readBoolean() {
+            skipWhitespace();
+            if (text.startsWith("true", position)) {
+                position += 4;
+                return true;
+            }
+            if (text.startsWith("false", position)) {
+                position += 5;
+                return false;
+            }
+            throw error("ожидается true или false");
+        }
+
+        void skipValue() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("нет значения");
+            }
+            char c = text.charAt(position);
+            if (c == '"') {
+                readString();
+            } else if (c == 't' || c == 'f') {
+                readBoolean();
+            } else if (text.startsWith("null", position)) {
+                position += 4;
+            } else {
+                while (position < text.length() && "+-.eE0123456789".indexOf(text.charAt(position)) >= 0) {
+                    position++;
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " (позиция " + position + ")");
+        }
+    }
+}
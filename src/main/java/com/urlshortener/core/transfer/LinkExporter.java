@@ -0,0 +1,75 @@
+package com.urlshortener.core.transfer;
+
+import com.urlshortener.core.service.ShorteningService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+// Потоковая выгрузка ссылок: хранилище обходится без копирования, каждая ссылка
+// форматируется в переиспользуемый буфер и сразу пишется в файл
+public class LinkExporter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ShorteningService shorteningService;
+
+    public LinkExporter(ShorteningService shorteningService) {
+        this.shorteningService = shorteningService;
+    }
+
+    public TransferStats export(Path file, LinkFilter filter, TransferProgress progress) throws IOException {
+        TransferFormat format = TransferFormat.fromPath(file);
+        TransferStats stats = new TransferStats();
+        StringBuilder line = new StringBuilder(256);
+        long start = System.nanoTime();
+
+        try (Writer writer = open(file)) {
+            String header = format.header();
+            if (header != null) {
+                writer.write(header);
+                writer.write('\n');
+            }
+
+            shorteningService.forEachLink(link -> {
+                stats.addProcessed();
+                if (filter.test(link)) {
+                    line.setLength(0);
+                    format.write(link, line);
+                    line.append('\n');
+                    try {
+                        writer.append(line);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    stats.addTransferred(1);
+                } else {
+                    stats.addFiltered();
+                }
+
+                if (stats.getProcessed() % TransferProgress.PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(stats.getProcessed(), System.nanoTime() - start);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    private static Writer open(Path file) throws IOException {
+        OutputStream output = Files.newOutputStream(file);
+        if (TransferFormat.isGzip(file)) {
+            output = new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
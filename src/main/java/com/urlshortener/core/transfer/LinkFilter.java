@@ -0,0 +1,45 @@
+package com.urlshortener.core.transfer;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+// Отбор ссылок при выгрузке и загрузке. Незаданное условие (null) пропускает все ссылки;
+// границы срока - полуинтервал [expiresFrom, expiresBefore)
+public class LinkFilter implements Predicate<ShortLink> {
+    private static final LinkFilter ALL = new LinkFilter(null, null, null, null);
+
+    private final UUID ownerId;
+    private final Boolean active;
+    private final Long expiresFromSecond;
+    private final Long expiresBeforeSecond;
+
+    public LinkFilter(UUID ownerId, Boolean active, LocalDateTime expiresFrom, LocalDateTime expiresBefore) {
+        this.ownerId = ownerId;
+        this.active = active;
+        this.expiresFromSecond = expiresFrom != null ? ShortLink.toEpochSecond(expiresFrom) : null;
+        this.expiresBeforeSecond = expiresBefore != null ? ShortLink.toEpochSecond(expiresBefore) : null;
+    }
+
+    public static LinkFilter all() {
+        return ALL;
+    }
+
+    @Override
+    public boolean test(ShortLink link) {
+        if (ownerId != null && !link.isOwnedBy(ownerId)) {
+            return false;
+        }
+        if (active != null && link.isActive() != active) {
+            return false;
+        }
+
+        long expiresAt = link.getExpiresAtEpochSecond();
+        if (expiresFromSecond != null && expiresAt < expiresFromSecond) {
+            return false;
+        }
+        return expiresBeforeSecond == null || expiresAt < expiresBeforeSecond;
+    }
+}
@@ -0,0 +1,114 @@
+package com.urlshortener.core.transfer;
+
+import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.config.ConfigSnapshot;
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.service.ShorteningService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+// Потоковая загрузка ссылок: файл читается построчно, разобранные ссылки добавляются
+// пачками по BATCH_SIZE, и каждая пачка сохраняется одной записью журнала.
+// В памяти одновременно находится не больше одной пачки
+public class LinkImporter {
+    private static final int BATCH_SIZE = 10_000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ShorteningService shorteningService;
+
+    public LinkImporter(ShorteningService shorteningService) {
+        this.shorteningService = shorteningService;
+    }
+
+    public TransferStats importFrom(Path file, LinkFilter filter, TransferProgress progress) throws IOException {
+        TransferFormat format = TransferFormat.fromPath(file);
+        TransferStats stats = new TransferStats();
+        ConfigSnapshot config = AppConfig.getInstance().snapshot();
+        List<ShortLink> batch = new ArrayList<>(BATCH_SIZE);
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = open(file)) {
+            String header = format.header();
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && header != null && header.equalsIgnoreCase(line.trim()))) {
+                    continue;
+                }
+
+                stats.addProcessed();
+                try {
+                    ShortLink link = format.parse(line);
+                    validate(link, config);
+                    if (filter.test(link)) {
+                        batch.add(link);
+                    } else {
+                        stats.addFiltered();
+                    }
+                } catch (RuntimeException e) {
+                    stats.addRejected(lineNumber, e.getMessage());
+                }
+
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, stats);
+                }
+                if (stats.getProcessed() % TransferProgress.PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(stats.getProcessed(), System.nanoTime() - start);
+                }
+            }
+        } finally {
+            flush(batch, stats);
+        }
+
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    // Код станет сегментом пути и полем файла ссылок с разделителем '|',
+    // URL проверяется так же, как при создании ссылки
+    private static void validate(ShortLink link, ConfigSnapshot config) {
+        String code = link.getShortCode();
+        if (code.isEmpty()) {
+            throw new IllegalArgumentException("пустой код");
+        }
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '|' || c == '/' || Character.isWhitespace(c) || Character.isISOControl(c)) {
+                throw new IllegalArgumentException("недопустимый символ в коде: " + code);
+            }
+        }
+        String error = ShorteningService.validateUrl(link.getOriginalUrl(), config);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private void flush(List<ShortLink> batch, TransferStats stats) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int added = shorteningService.importLinks(batch);
+        stats.addTransferred(added);
+        stats.addDuplicates(batch.size() - added);
+        batch.clear();
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (TransferFormat.isGzip(file)) {
+            input = new GZIPInputStream(input, BUFFER_SIZE);
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
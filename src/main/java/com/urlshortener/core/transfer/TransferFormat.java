@@ -0,0 +1,75 @@
+package com.urlshortener.core.transfer;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Форматы выгрузки ссылок. Одна ссылка - одна строка, поэтому файл читается и пишется потоково.
+// Формат определяется по расширению: .ndjson/.jsonl или .csv, с необязательным .gz
+public enum TransferFormat {
+    NDJSON {
+        @Override
+        String header() {
+            return null;
+        }
+
+        @Override
+        void write(ShortLink link, StringBuilder out) {
+            JsonLine.write(link, out);
+        }
+
+        @Override
+        ShortLink parse(String line) {
+            return JsonLine.parse(line);
+        }
+    },
+    CSV {
+        @Override
+        String header() {
+            return CsvLine.HEADER;
+        }
+
+        @Override
+        void write(ShortLink link, StringBuilder out) {
+            CsvLine.write(link, out);
+        }
+
+        @Override
+        ShortLink parse(String line) {
+            return CsvLine.parse(line);
+        }
+    };
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    // Строка заголовка или null, если формат без заголовка
+    abstract String header();
+
+    // Дописывает ссылку в out без перевода строки
+    abstract void write(ShortLink link, StringBuilder out);
+
+    // Бросает IllegalArgumentException, если строка не разбирается
+    abstract ShortLink parse(String line);
+
+    public static TransferFormat fromPath(Path file) {
+        String name = baseName(file);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        throw new IllegalArgumentException("Неизвестный формат файла " + file.getFileName()
+                + ": ожидается .ndjson, .jsonl или .csv (можно с .gz)");
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX);
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+    }
+}
@@ -0,0 +1,11 @@
+package com.urlshortener.core.transfer;
+
+// Вызывается из потока выгрузки или загрузки каждые PROGRESS_INTERVAL обработанных записей
+@FunctionalInterface
+public interface TransferProgress {
+    int PROGRESS_INTERVAL = 100_000;
+
+    TransferProgress NONE = (processed, elapsedNanos) -> { };
+
+    void onProgress(long processed, long elapsedNanos);
+}
@@ -0,0 +1,82 @@
+package com.urlshortener.core.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Итог выгрузки или загрузки. Ошибки разбора хранятся только первые MAX_ERRORS,
+// чтобы испорченный файл не занимал память целиком
+public class TransferStats {
+    static final int MAX_ERRORS = 20;
+
+    private long processed;
+    private long transferred;
+    private long filtered;
+    private long duplicates;
+    private long rejected;
+    private long elapsedNanos;
+    private final List<String> errors = new ArrayList<>();
+
+    void addProcessed() {
+        processed++;
+    }
+
+    void addTransferred(long count) {
+        transferred += count;
+    }
+
+    void addFiltered() {
+        filtered++;
+    }
+
+    void addDuplicates(long count) {
+        duplicates += count;
+    }
+
+    void addRejected(long lineNumber, String reason) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("Строка " + lineNumber + ": " + reason);
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Прочитанные записи файла или просмотренные ссылки хранилища
+    public long getProcessed() {
+        return processed;
+    }
+
+    // Записанные в файл или добавленные в хранилище ссылки
+    public long getTransferred() {
+        return transferred;
+    }
+
+    public long getFiltered() {
+        return filtered;
+    }
+
+    // Ссылки, коды которых уже заняты; при загрузке они не перезаписываются
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public long getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : processed * 1_000_000_000L / elapsedNanos;
+    }
+}
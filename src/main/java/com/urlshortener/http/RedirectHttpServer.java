@@ -0,0 +1,199 @@
+package com.urlshortener.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.urlshortener.core.metrics.Metrics;
+import com.urlshortener.core.service.RedirectResult;
+import com.urlshortener.core.service.RedirectService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// HTTP-сервер переходов: GET /{код} отвечает 302 с Location на исходный URL,
+// GET /_/metrics отдает метрики в текстовом формате Prometheus. Код ссылки не может содержать '/',
+// поэтому путь метрик не перекрывает ни один код.
+// Ответы об ошибках подготовлены заранее, соединения остаются открытыми (keep-alive),
+// запросы обслуживает пул потоков фиксированного размера
+public class RedirectHttpServer {
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String METRICS_PATH = "/_/metrics";
+    private static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final RedirectService redirectService;
+    private final int port;
+    private final int threads;
+    private final int backlog;
+    private final Map<RedirectResult.Status, ErrorResponse> errorResponses = new EnumMap<>(RedirectResult.Status.class);
+    private final byte[] methodNotAllowedBody = "Ошибка: поддерживается только GET".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public RedirectHttpServer(RedirectService redirectService, int port, int threads, int backlog) {
+        this.redirectService = redirectService;
+        this.port = port;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 2;
+        this.backlog = backlog;
+
+        for (RedirectResult.Status status : RedirectResult.Status.values()) {
+            if (status != RedirectResult.Status.FOUND) {
+                errorResponses.put(status, new ErrorResponse(status));
+            }
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        // Без TCP_NODELAY короткие ответы на keep-alive соединении ждут отложенного ACK (~40 мс).
+        // Свойство читается один раз при первом создании сервера
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "http-redirect-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.createContext("/", this::handle);
+        server.createContext(METRICS_PATH, this::handleMetrics);
+        server.setExecutor(executor);
+        server.start();
+
+        System.out.println("HTTP-сервер переходов запущен на порту " + getPort() + " (потоков: " + threads + ")");
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        server = null;
+        executor = null;
+        System.out.println("HTTP-сервер переходов остановлен");
+    }
+
+    // Фактический порт; отличается от настроенного, если был задан порт 0
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendBody(exchange, 405, methodNotAllowedBody);
+                return;
+            }
+
+            String shortCode = shortCode(exchange.getRequestURI().getRawPath());
+            RedirectResult result = shortCode != null
+                    ? redirectService.resolve(shortCode, exchange.getRemoteAddress().getAddress().getHostAddress())
+                    : RedirectResult.of(RedirectResult.Status.NOT_FOUND);
+
+            if (result.isFound()) {
+                Headers headers = exchange.getResponseHeaders();
+                headers.set("Location", result.getLocationHeader());
+                headers.set("Cache-Control", "no-store");
+                exchange.sendResponseHeaders(302, -1);
+                return;
+            }
+
+            ErrorResponse error = errorResponses.get(result.getStatus());
+            if (result.getStatus() == RedirectResult.Status.RATE_LIMITED) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            sendBody(exchange, error.statusCode, error.body);
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка обработки запроса " + exchange.getRequestURI() + ": " + e.getMessage());
+            sendBody(exchange, 500, new byte[0]);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendBody(exchange, 405, methodNotAllowedBody);
+                return;
+            }
+
+            byte[] body = Metrics.getInstance().toPrometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", METRICS_CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка вывода метрик: " + e.getMessage());
+            sendBody(exchange, 500, new byte[0]);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Код - единственный сегмент пути: "/abc123"
+    private static String shortCode(String path) {
+        if (path == null || path.length() < 2 || path.indexOf('/', 1) >= 0) {
+            return null;
+        }
+        return path.substring(1);
+    }
+
+    private static void sendBody(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    private static final class ErrorResponse {
+        private final int statusCode;
+        private final byte[] body;
+
+        private ErrorResponse(RedirectResult.Status status) {
+            this.statusCode = statusCode(status);
+            this.body = RedirectResult.of(status).getMessage().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static int statusCode(RedirectResult.Status status) {
+            switch (status) {
+                case NOT_FOUND:
+                    return 404;
+                case RATE_LIMITED:
+                    return 429;
+                default:
+                    return 410;
+            }
+        }
+    }
+}
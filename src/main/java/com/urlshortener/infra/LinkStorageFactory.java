@@ -0,0 +1,71 @@
+package com.urlshortener.infra;
+
+import com.urlshortener.core.config.AppConfig;
+import com.urlshortener.core.metrics.Metrics;
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.core.storage.ShardedLinkStorage;
+import com.urlshortener.infra.inmemory.InMemoryLinkStorage;
+import com.urlshortener.infra.offheap.OffHeapLinkStorage;
+
+import java.util.function.ToLongFunction;
+
+// Выбор хранилища ссылок по свойствам storage.engine и storage.shards
+public final class LinkStorageFactory {
+
+    private LinkStorageFactory() {
+    }
+
+    public static LinkStorage create(AppConfig config) {
+        int shardCount = Math.max(1, config.getStorageShards());
+        LinkStorage[] shards = new LinkStorage[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = createEngine(config, i == 0);
+        }
+
+        if (shards[0] instanceof OffHeapLinkStorage) {
+            Metrics metrics = Metrics.getInstance();
+            metrics.gauge("urlshortener_offheap_allocated_bytes",
+                    "Занято в блоках вне кучи, включая удаленные записи",
+                    () -> sum(shards, OffHeapLinkStorage::getAllocatedBytes));
+            metrics.gauge("urlshortener_offheap_garbage_bytes",
+                    "Место удаленных записей вне кучи",
+                    () -> sum(shards, OffHeapLinkStorage::getGarbageBytes));
+        }
+
+        return shardCount == 1 ? shards[0] : new ShardedLinkStorage(shards);
+    }
+
+    private static LinkStorage createEngine(AppConfig config, boolean reportErrors) {
+        String engine = config.getStorageEngine();
+
+        switch (engine.trim().toLowerCase()) {
+            case "heap":
+                return new InMemoryLinkStorage();
+            case "offheap":
+                return new OffHeapLinkStorage(offHeapChunkSizeBytes(config.getOffHeapChunkSizeMb()));
+            default:
+                if (reportErrors) {
+                    System.err.println("Неизвестное хранилище ссылок '" + engine + "'. Используется heap.");
+                }
+                return new InMemoryLinkStorage();
+        }
+    }
+
+    // Размер считается в long: при 2048 МБ и больше int переполнился бы и блок молча стал бы минимальным
+    private static int offHeapChunkSizeBytes(int chunkSizeMb) {
+        long bytes = (long) chunkSizeMb * 1024 * 1024;
+        if (bytes <= 0 || bytes > OffHeapLinkStorage.MAX_CHUNK_SIZE_BYTES) {
+            throw new IllegalArgumentException("Недопустимый storage.offheap.chunk.mb=" + chunkSizeMb +
+                    ": размер блока должен быть от 1 до " + (OffHeapLinkStorage.MAX_CHUNK_SIZE_BYTES >> 20) + " МБ");
+        }
+        return (int) bytes;
+    }
+
+    private static long sum(LinkStorage[] shards, ToLongFunction<OffHeapLinkStorage> metric) {
+        long total = 0;
+        for (LinkStorage shard : shards) {
+            total += metric.applyAsLong((OffHeapLinkStorage) shard);
+        }
+        return total;
+    }
+}
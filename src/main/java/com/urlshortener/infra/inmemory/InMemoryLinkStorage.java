@@ -1,4 +1,59 @@
 package com.urlshortener.infra.inmemory;
 
-public class InMemoryLinkStorage {
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Хранилище по умолчанию: ссылки живут в куче в ConcurrentHashMap
+public class InMemoryLinkStorage implements LinkStorage {
+    private final ConcurrentHashMap<String, ShortLink> links = new ConcurrentHashMap<>();
+
+    @Override
+    public ShortLink get(String shortCode) {
+        return links.get(shortCode);
+    }
+
+    @Override
+    public ShortLink put(ShortLink link) {
+        return links.put(link.getShortCode(), link);
+    }
+
+    @Override
+    public ShortLink remove(String shortCode) {
+        return links.remove(shortCode);
+    }
+
+    @Override
+    public boolean contains(String shortCode) {
+        return links.containsKey(shortCode);
+    }
+
+    @Override
+    public int size() {
+        return links.size();
+    }
+
+    @Override
+    public void clear() {
+        links.clear();
+    }
+
+    @Override
+    public Iterator<ShortLink> iterator() {
+        return links.values().iterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super ShortLink> action) {
+        links.values().forEach(action);
+    }
+
+    @Override
+    public Spliterator<ShortLink> spliterator() {
+        return links.values().spliterator();
+    }
 }
@@ -0,0 +1,631 @@
+package com.urlshortener.infra.offheap;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.core.storage.LinkStorage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+// Хранилище ссылок вне кучи: записи лежат в прямых ByteBuffer-ах (арена из блоков по chunkSize байт),
+// индекс - хеш-таблица с открытой адресацией из long-ов, тоже вне кучи. Сборщик мусора видит
+// несколько десятков буферов вместо миллионов объектов, поэтому паузы не растут с числом ссылок.
+//
+// Ячейка индекса: 0 - пусто, -1 - удалено, иначе 20 бит отпечатка хеша и 44 бита адреса записи + 1
+// (номер блока в старших 12 битах адреса). Начальная ячейка поиска берется из старших бит хеша,
+// поэтому порядок ячеек совпадает с порядком хешей при любой емкости таблицы и обход может
+// продолжиться после перестроения. Запись после удаления или замены остается в арене мусором. Когда мусора становится больше, чем живых записей, арена сжимается: живые записи
+// копируются в новую арену, а в состояние старой копии CAS-ом пишется адрес новой (OffHeapRecord.MOVED).
+// Представления старых копий переходят по этому адресу, поэтому переходы не теряются; старые блоки
+// освобождает сборщик мусора, когда на них не останется представлений.
+//
+// Поиск идет под оптимистичным чтением StampedLock, вставка, удаление и сжатие - под блокировкой записи.
+// Переходы меняются CAS прямо в записи и блокировок не требуют
+public class OffHeapLinkStorage implements LinkStorage {
+    public static final int MAX_CHUNK_SIZE_BYTES = 1 << 30;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    private static final int ADDRESS_BITS = 44;
+    private static final long ADDRESS_MASK = (1L << ADDRESS_BITS) - 1;
+    private static final int MAX_CHUNKS = 1 << (ADDRESS_BITS - 32);
+    private static final int PAGE_SHIFT = 24;
+    private static final int PAGE_SLOTS = 1 << PAGE_SHIFT;
+    private static final int MIN_TABLE_SIZE = 1024;
+    private static final double MAX_LOAD = 0.7;
+    private static final int ITERATOR_BATCH = 1024;
+    private static final long HASH_SPACE = 1L << 32;
+
+    private final int chunkSize;
+    private final StampedLock lock = new StampedLock();
+
+    private volatile IndexTable table = new IndexTable(MIN_TABLE_SIZE);
+    private volatile Arena arena = new Arena();
+    private int chunkPosition;
+    private int size;
+    private int tombstones;
+    // Байт записей в текущей арене, включая мусор
+    private long arenaBytes;
+    private long garbageBytes;
+    private long compactions;
+
+    public OffHeapLinkStorage(int chunkSizeBytes) {
+        this.chunkSize = Math.max(1 << 20, Math.min(chunkSizeBytes, MAX_CHUNK_SIZE_BYTES)) & ~7;
+    }
+
+    // Для кодов из ASCII-символов ключ сравнивается с записью посимвольно, без массива байт
+    @Override
+    public ShortLink get(String shortCode) {
+        byte[] key = asciiOrNull(shortCode) ? null : shortCode.getBytes(StandardCharsets.UTF_8);
+        int hash = key == null ? hash(shortCode) : hash(key);
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                IndexTable index = table;
+                Arena current = arena;
+                long slot = index.slot(find(index, current, shortCode, key, hash));
+                if (lock.validate(stamp)) {
+                    return isLive(slot) ? view(current, slot, shortCode) : null;
+                }
+            } catch (RuntimeException e) {
+                // Таблицу меняли во время чтения, повторяем под блокировкой
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            Arena current = arena;
+            long slot = table.slot(find(table, current, shortCode, key, hash));
+            return isLive(slot) ? view(current, slot, shortCode) : null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public ShortLink put(ShortLink link) {
+        byte[] key = link.getShortCode().getBytes(StandardCharsets.UTF_8);
+        byte[] url = link.getOriginalUrl().getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+
+        long stamp = lock.writeLock();
+        try {
+            if (size + tombstones + 1 > table.capacity() * MAX_LOAD) {
+                resize();
+            }
+
+            Arena current = arena;
+            int index = find(table, current, null, key, hash);
+            long previous = table.slot(index);
+            ShortLink replaced = null;
+            if (isLive(previous)) {
+                replaced = view(current, previous, link.getShortCode());
+                garbageBytes += recordSize(previous);
+            } else {
+                index = insertionPoint(table, hash);
+                if (table.slot(index) == TOMBSTONE) {
+                    tombstones--;
+                }
+                size++;
+            }
+
+            long address = writeRecord(link, key, url);
+            table.setSlot(index, encodeSlot(hash, address));
+            compactIfNeeded();
+            return replaced;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public ShortLink remove(String shortCode) {
+        byte[] key = shortCode.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+
+        long stamp = lock.writeLock();
+        try {
+            Arena current = arena;
+            int index = find(table, current, null, key, hash);
+            long slot = table.slot(index);
+            if (!isLive(slot)) {
+                return null;
+            }
+
+            ShortLink removed = view(current, slot, shortCode);
+            table.setSlot(index, TOMBSTONE);
+            size--;
+            tombstones++;
+            garbageBytes += recordSize(slot);
+            compactIfNeeded();
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Проверка без создания представления ссылки
+    @Override
+    public boolean contains(String shortCode) {
+        byte[] key = asciiOrNull(shortCode) ? null : shortCode.getBytes(StandardCharsets.UTF_8);
+        int hash = key == null ? hash(shortCode) : hash(key);
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                IndexTable index = table;
+                long slot = index.slot(find(index, arena, shortCode, key, hash));
+                if (lock.validate(stamp)) {
+                    return isLive(slot);
+                }
+            } catch (RuntimeException e) {
+                // Таблицу меняли во время чтения, повторяем под блокировкой
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return isLive(table.slot(find(table, arena, shortCode, key, hash)));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Память отпускается сборщиком мусора вместе с буферами, когда на них не останется ссылок
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new IndexTable(MIN_TABLE_SIZE);
+            arena = new Arena();
+            chunkPosition = 0;
+            size = 0;
+            tombstones = 0;
+            arenaBytes = 0;
+            garbageBytes = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    @Override
+    public Iterator<ShortLink> iterator() {
+        return new LinkIterator();
+    }
+
+    // Байт вне кучи, занятых текущей ареной записей и индексом
+    public long getAllocatedBytes() {
+        return (long) arena.chunks.length * chunkSize + (long) table.capacity() * Long.BYTES;
+    }
+
+    // Байт в арене, занятых удаленными и замененными записями
+    public long getGarbageBytes() {
+        long stamp = lock.readLock();
+        try {
+            return garbageBytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getCompactions() {
+        long stamp = lock.readLock();
+        try {
+            return compactions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // key == null означает, что код из ASCII-символов и сравнивается по символам строки
+    private int find(IndexTable table, Arena arena, String shortCode, byte[] key, int hash) {
+        int mask = table.capacity() - 1;
+        long fingerprint = fingerprint(hash);
+        int index = table.home(hash);
+
+        for (int probes = 0; probes <= mask; probes++) {
+            long slot = table.slot(index);
+            if (slot == EMPTY) {
+                return index;
+            }
+            if (slot != TOMBSTONE && (slot >>> ADDRESS_BITS) == fingerprint
+                    && (key != null ? keyEquals(arena, slot, key) : keyEquals(arena, slot, shortCode))) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int insertionPoint(IndexTable table, int hash) {
+        int mask = table.capacity() - 1;
+        int index = table.home(hash);
+        while (isLive(table.slot(index))) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize() {
+        int capacity = MIN_TABLE_SIZE;
+        while (capacity * MAX_LOAD < (size + 1) * 2L) {
+            capacity <<= 1;
+        }
+
+        IndexTable resized = new IndexTable(capacity);
+        IndexTable current = table;
+        for (int i = 0; i < current.capacity(); i++) {
+            long slot = current.slot(i);
+            if (isLive(slot)) {
+                resized.setSlot(insertionPoint(resized, hash(arena, slot)), slot);
+            }
+        }
+
+        table = resized;
+        tombstones = 0;
+    }
+
+    // Сжатие, когда мусора не меньше блока и больше, чем живых записей
+    private void compactIfNeeded() {
+        if (garbageBytes >= chunkSize && garbageBytes * 2 > arenaBytes) {
+            compact();
+        }
+    }
+
+    // Живые записи копируются в новую арену по порядку индекса. Состояние и срок копируются
+    // отдельно от остальных байт: их меняют без блокировки. Состояние переносится CAS-ом вместе
+    // с пометкой MOVED, а срок, измененный после копирования, дописывается в новую копию CAS-ом
+    private void compact() {
+        Arena old = arena;
+        Arena fresh = new Arena();
+        old.successor = fresh;
+        arena = fresh;
+        chunkPosition = 0;
+        arenaBytes = 0;
+
+        IndexTable current = table;
+        for (int i = 0; i < current.capacity(); i++) {
+            long slot = current.slot(i);
+            if (!isLive(slot)) {
+                continue;
+            }
+
+            long oldAddress = address(slot);
+            ByteBuffer source = old.chunks[(int) (oldAddress >>> 32)];
+            int sourceOffset = (int) oldAddress;
+            int recordSize = OffHeapRecord.size(source.getInt(sourceOffset + OffHeapRecord.CODE_LENGTH),
+                    source.getInt(sourceOffset + OffHeapRecord.URL_LENGTH));
+
+            long newAddress = allocate(recordSize);
+            ByteBuffer target = fresh.chunks[(int) (newAddress >>> 32)];
+            int targetOffset = (int) newAddress;
+            target.put(targetOffset, source, sourceOffset, recordSize);
+
+            long expires = (long) LONGS.getVolatile(source, sourceOffset + OffHeapRecord.EXPIRES);
+            LONGS.setVolatile(target, targetOffset + OffHeapRecord.EXPIRES, expires);
+
+            long state;
+            do {
+                state = (long) LONGS.getVolatile(source, sourceOffset + OffHeapRecord.STATE);
+                LONGS.setVolatile(target, targetOffset + OffHeapRecord.STATE, state);
+            } while (!LONGS.compareAndSet(source, sourceOffset + OffHeapRecord.STATE,
+                    state, OffHeapRecord.MOVED | newAddress));
+
+            LONGS.compareAndSet(target, targetOffset + OffHeapRecord.EXPIRES, expires,
+                    (long) LONGS.getVolatile(source, sourceOffset + OffHeapRecord.EXPIRES));
+
+            current.setSlot(i, (slot & ~ADDRESS_MASK) | (newAddress + 1));
+        }
+
+        garbageBytes = 0;
+        compactions++;
+    }
+
+    private long writeRecord(ShortLink link, byte[] key, byte[] url) {
+        int recordSize = OffHeapRecord.size(key.length, url.length);
+        if (recordSize > chunkSize) {
+            throw new IllegalArgumentException("Ссылка не помещается в блок хранилища: " + recordSize + " байт");
+        }
+
+        long address = allocate(recordSize);
+        ByteBuffer chunk = arena.chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+
+        chunk.putLong(offset + OffHeapRecord.STATE, OffHeapShortLink.stateOf(link));
+        chunk.putLong(offset + OffHeapRecord.EXPIRES, link.getExpiresAtEpochSecond());
+        chunk.putLong(offset + OffHeapRecord.CREATED, link.getCreatedAtEpochSecond());
+        chunk.putLong(offset + OffHeapRecord.OWNER_MSB, link.getOwnerMostSigBits());
+        chunk.putLong(offset + OffHeapRecord.OWNER_LSB, link.getOwnerLeastSigBits());
+        chunk.putInt(offset + OffHeapRecord.CODE_LENGTH, key.length);
+        chunk.putInt(offset + OffHeapRecord.URL_LENGTH, url.length);
+        chunk.put(offset + OffHeapRecord.HEADER_SIZE, key);
+        chunk.put(offset + OffHeapRecord.HEADER_SIZE + key.length, url);
+        return address;
+    }
+
+    // Место под запись в текущей арене; новый блок добавляется, когда запись не помещается в последний
+    private long allocate(int recordSize) {
+        Arena current = arena;
+        ByteBuffer[] chunks = current.chunks;
+        if (chunks.length == 0 || chunkPosition + recordSize > chunkSize) {
+            if (chunks.length == MAX_CHUNKS) {
+                throw new IllegalStateException("Хранилище вне кучи заполнено");
+            }
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = allocateBuffer(chunkSize);
+            current.chunks = chunks;
+            chunkPosition = 0;
+        }
+
+        int offset = chunkPosition;
+        chunkPosition += recordSize;
+        arenaBytes += recordSize;
+        return ((long) (chunks.length - 1) << 32) | offset;
+    }
+
+    private static boolean keyEquals(Arena arena, long slot, byte[] key) {
+        long address = address(slot);
+        ByteBuffer chunk = arena.chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+
+        if (chunk.getInt(offset + OffHeapRecord.CODE_LENGTH) != key.length) {
+            return false;
+        }
+        int codeStart = offset + OffHeapRecord.HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(codeStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean keyEquals(Arena arena, long slot, String asciiKey) {
+        long address = address(slot);
+        ByteBuffer chunk = arena.chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+
+        if (chunk.getInt(offset + OffHeapRecord.CODE_LENGTH) != asciiKey.length()) {
+            return false;
+        }
+        int codeStart = offset + OffHeapRecord.HEADER_SIZE;
+        for (int i = 0; i < asciiKey.length(); i++) {
+            if (chunk.get(codeStart + i) != (byte) asciiKey.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Хеш кода записи без копирования байт; совпадает с hash(byte[])
+    private static int hash(Arena arena, long slot) {
+        long address = address(slot);
+        ByteBuffer chunk = arena.chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+        int codeStart = offset + OffHeapRecord.HEADER_SIZE;
+        int codeEnd = codeStart + chunk.getInt(offset + OffHeapRecord.CODE_LENGTH);
+
+        int hash = 0x811C9DC5;
+        for (int i = codeStart; i < codeEnd; i++) {
+            hash = (hash ^ chunk.get(i)) * 0x01000193;
+        }
+        return finishHash(hash);
+    }
+
+    private int recordSize(long slot) {
+        long address = address(slot);
+        ByteBuffer chunk = arena.chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+        return OffHeapRecord.size(chunk.getInt(offset + OffHeapRecord.CODE_LENGTH),
+                chunk.getInt(offset + OffHeapRecord.URL_LENGTH));
+    }
+
+    // Представление записи; shortCode передается, если уже известен, чтобы не декодировать его.
+    // URL декодируется при первом обращении
+    private static ShortLink view(Arena arena, long slot, String shortCode) {
+        long address = address(slot);
+        ByteBuffer chunk = arena.chunks[(int) (address >>> 32)];
+        int offset = (int) address;
+
+        if (shortCode == null) {
+            byte[] code = new byte[chunk.getInt(offset + OffHeapRecord.CODE_LENGTH)];
+            chunk.get(offset + OffHeapRecord.HEADER_SIZE, code);
+            shortCode = new String(code, StandardCharsets.UTF_8);
+        }
+
+        return new OffHeapShortLink(arena, chunk, offset,
+                shortCode,
+                chunk.getLong(offset + OffHeapRecord.OWNER_MSB),
+                chunk.getLong(offset + OffHeapRecord.OWNER_LSB),
+                chunk.getLong(offset + OffHeapRecord.CREATED));
+    }
+
+    private static boolean isLive(long slot) {
+        return slot != EMPTY && slot != TOMBSTONE;
+    }
+
+    private static long encodeSlot(int hash, long address) {
+        return (fingerprint(hash) << ADDRESS_BITS) | (address + 1);
+    }
+
+    private static long address(long slot) {
+        return (slot & ADDRESS_MASK) - 1;
+    }
+
+    // 20 бит хеша; значение 0xFFFFF исключено, чтобы ячейка не совпала с TOMBSTONE
+    // Младшие биты: старшие уже определяют ячейку и внутри одной серии проб почти совпадают
+    private static long fingerprint(int hash) {
+        return (hash & 0xFFFFF) % 0xFFFFF;
+    }
+
+    private static boolean asciiOrNull(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] key) {
+        int hash = 0x811C9DC5;
+        for (byte b : key) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        return finishHash(hash);
+    }
+
+    // Совпадает с hash(byte[]) для байт UTF-8 строки из ASCII-символов
+    private static int hash(String asciiKey) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < asciiKey.length(); i++) {
+            hash = (hash ^ asciiKey.charAt(i)) * 0x01000193;
+        }
+        return finishHash(hash);
+    }
+
+    private static int finishHash(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+
+    private static ByteBuffer allocateBuffer(int bytes) {
+        return ByteBuffer.allocateDirect(bytes + 8).alignedSlice(8).order(ByteOrder.nativeOrder());
+    }
+
+    // Блоки записей одного поколения. После сжатия successor указывает на арену,
+    // куда перенесены живые записи; адреса MOVED относятся к ней
+    static final class Arena {
+        volatile ByteBuffer[] chunks = new ByteBuffer[0];
+        volatile Arena successor;
+    }
+
+    // Индекс разбит на страницы по PAGE_SLOTS ячеек: один прямой буфер не может быть больше 2 ГБ
+    private static final class IndexTable {
+        private final ByteBuffer[] pages;
+        private final int capacity;
+        // Сдвиг хеша до номера начальной ячейки: capacity = 2^(32 - shift)
+        private final int shift;
+
+        private IndexTable(int capacity) {
+            this.capacity = capacity;
+            this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+            int pageSlots = Math.min(capacity, PAGE_SLOTS);
+            this.pages = new ByteBuffer[capacity / pageSlots];
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = allocateBuffer(pageSlots * Long.BYTES);
+            }
+        }
+
+        private int capacity() {
+            return capacity;
+        }
+
+        private int home(int hash) {
+            return hash >>> shift;
+        }
+
+        private long slot(int index) {
+            return pages[index >>> PAGE_SHIFT].getLong((index & (PAGE_SLOTS - 1)) * Long.BYTES);
+        }
+
+        private void setSlot(int index, long value) {
+            pages[index >>> PAGE_SHIFT].putLong((index & (PAGE_SLOTS - 1)) * Long.BYTES, value);
+        }
+    }
+
+    // Обходит ссылки по возрастанию хеша пачками: ячейки пачки копируются под блокировкой чтения
+    // вместе с текущей ареной, а представления ссылок создаются уже без нее. Между пачками
+    // запоминается только граница хешей, поэтому перестроение таблицы и сжатие арены не приводят
+    // к пропускам и повторам: следующая пачка берется из текущей таблицы с той же границы
+    private final class LinkIterator implements Iterator<ShortLink> {
+        private long[] batch = new long[ITERATOR_BATCH];
+        private Arena batchArena;
+        private int batchSize;
+        private int batchPosition;
+        // Беззнаковый хеш, с которого начинается следующая пачка
+        private long nextHash;
+
+        @Override
+        public boolean hasNext() {
+            while (batchPosition == batchSize) {
+                if (nextHash >= HASH_SPACE) {
+                    return false;
+                }
+                fill();
+            }
+            return true;
+        }
+
+        @Override
+        public ShortLink next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return view(batchArena, batch[batchPosition++], null);
+        }
+
+        // Пачка - ссылки с хешами от nextHash до конца ITERATOR_BATCH начальных ячеек. Их записи
+        // лежат от начальной ячейки до первой пустой после диапазона: пробы могли унести их дальше
+        private void fill() {
+            batchSize = 0;
+            batchPosition = 0;
+
+            long stamp = lock.readLock();
+            try {
+                IndexTable current = table;
+                batchArena = arena;
+
+                int capacity = current.capacity();
+                int first = (int) (nextHash >>> current.shift);
+                int last = Math.min(first + ITERATOR_BATCH, capacity);
+                long low = nextHash;
+                long high = (long) last << current.shift;
+
+                int index = first;
+                for (int scanned = 0; scanned < capacity; scanned++) {
+                    long slot = current.slot(index);
+                    if (slot == EMPTY && scanned >= last - first) {
+                        break;
+                    }
+                    if (isLive(slot)) {
+                        long slotHash = Integer.toUnsignedLong(hash(batchArena, slot));
+                        if (slotHash >= low && slotHash < high) {
+                            if (batchSize == batch.length) {
+                                batch = Arrays.copyOf(batch, batch.length * 2);
+                            }
+                            batch[batchSize++] = slot;
+                        }
+                    }
+                    index = (index + 1) & (capacity - 1);
+                }
+                nextHash = high;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
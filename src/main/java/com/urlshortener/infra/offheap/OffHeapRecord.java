@@ -0,0 +1,26 @@
+package com.urlshortener.infra.offheap;
+
+// Раскладка записи ссылки в памяти вне кучи. Запись выровнена на 8 байт:
+// состояние (переходы, лимит, активность), срок и создание в секундах эпохи,
+// владелец, длины кода и URL, затем байты кода и URL в UTF-8
+final class OffHeapRecord {
+    static final int STATE = 0;
+    static final int EXPIRES = 8;
+    static final int CREATED = 16;
+    static final int OWNER_MSB = 24;
+    static final int OWNER_LSB = 32;
+    static final int CODE_LENGTH = 40;
+    static final int URL_LENGTH = 44;
+    static final int HEADER_SIZE = 48;
+    // Старший бит состояния: запись перенесена при сжатии, младшие 44 бита - адрес
+    // новой копии в следующей арене. У живого состояния этот бит всегда 0
+    static final long MOVED = Long.MIN_VALUE;
+    static final long MOVED_ADDRESS_MASK = (1L << 44) - 1;
+
+    private OffHeapRecord() {
+    }
+
+    static int size(int codeLength, int urlLength) {
+        return (HEADER_SIZE + codeLength + urlLength + 7) & ~7;
+    }
+}
@@ -0,0 +1,142 @@
+package com.urlshortener.infra.offheap;
+
+import com.urlshortener.core.model.ShortLink;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// Ссылка, состояние и срок которой живут в записи хранилища вне кучи. Переходы меняются
+// CAS прямо в памяти записи, поэтому все копии-представления одной записи согласованы.
+// Если запись перенесли при сжатии арены, представление переходит по адресу из состояния
+// старой копии и дальше работает с новой. URL декодируется при первом обращении
+final class OffHeapShortLink extends ShortLink {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private volatile Location location;
+    private String originalUrl;
+
+    OffHeapShortLink(OffHeapLinkStorage.Arena arena, ByteBuffer chunk, int offset, String shortCode,
+                     long ownerMostSigBits, long ownerLeastSigBits, long createdAtEpochSecond) {
+        super(shortCode, null, ownerMostSigBits, ownerLeastSigBits, createdAtEpochSecond, 0, 0, 0, false);
+        this.location = new Location(arena, chunk, offset);
+    }
+
+    @Override
+    public String getOriginalUrl() {
+        String url = originalUrl;
+        if (url == null) {
+            Location current = resolve();
+            ByteBuffer chunk = current.chunk;
+            int codeLength = chunk.getInt(current.offset + OffHeapRecord.CODE_LENGTH);
+            byte[] bytes = new byte[chunk.getInt(current.offset + OffHeapRecord.URL_LENGTH)];
+            chunk.get(current.offset + OffHeapRecord.HEADER_SIZE + codeLength, bytes);
+            url = new String(bytes, StandardCharsets.UTF_8);
+            originalUrl = url;
+        }
+        return url;
+    }
+
+    @Override
+    public long getExpiresAtEpochSecond() {
+        Location current = resolve();
+        return (long) LONGS.getVolatile(current.chunk, current.offset + OffHeapRecord.EXPIRES);
+    }
+
+    // Сжатие переносит срок в новую копию после переноса состояния; если запись перенесли
+    // во время записи, срок повторяется в новой копии
+    @Override
+    public void setExpiresAtEpochSecond(long expiresAtEpochSecond) {
+        Location current = resolve();
+        while (true) {
+            LONGS.setVolatile(current.chunk, current.offset + OffHeapRecord.EXPIRES, expiresAtEpochSecond);
+            long state = (long) LONGS.getVolatile(current.chunk, current.offset + OffHeapRecord.STATE);
+            if (state >= 0) {
+                return;
+            }
+            current = follow(current, state);
+        }
+    }
+
+    @Override
+    protected long loadState() {
+        Location current = location;
+        while (true) {
+            long state = (long) LONGS.getVolatile(current.chunk, current.offset + OffHeapRecord.STATE);
+            if (state >= 0) {
+                return state;
+            }
+            current = follow(current, state);
+        }
+    }
+
+    @Override
+    protected boolean compareAndSetState(long expected, long next) {
+        Location current = location;
+        while (true) {
+            if (LONGS.compareAndSet(current.chunk, current.offset + OffHeapRecord.STATE, expected, next)) {
+                return true;
+            }
+            long state = (long) LONGS.getVolatile(current.chunk, current.offset + OffHeapRecord.STATE);
+            if (state >= 0) {
+                return false;
+            }
+            current = follow(current, state);
+        }
+    }
+
+    // Упакованное состояние ссылки в том же формате, что использует ShortLink
+    static long stateOf(ShortLink link) {
+        return pack(link.getCurrentClicks(), link.getMaxClicks(), link.isActive());
+    }
+
+    private Location resolve() {
+        Location current = location;
+        while (true) {
+            long state = (long) LONGS.getVolatile(current.chunk, current.offset + OffHeapRecord.STATE);
+            if (state >= 0) {
+                return current;
+            }
+            current = follow(current, state);
+        }
+    }
+
+    // Запоминает новую копию, чтобы следующие обращения не проходили цепочку переносов заново
+    private Location follow(Location current, long movedState) {
+        long address = movedState & OffHeapRecord.MOVED_ADDRESS_MASK;
+        OffHeapLinkStorage.Arena next = current.arena.successor;
+        Location moved = new Location(next, next.chunks[(int) (address >>> 32)], (int) address);
+        location = moved;
+        return moved;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof OffHeapShortLink)) {
+            return false;
+        }
+        Location mine = resolve();
+        Location theirs = ((OffHeapShortLink) other).resolve();
+        return mine.chunk == theirs.chunk && mine.offset == theirs.offset;
+    }
+
+    // Код не меняется при переносе записи, в отличие от адреса
+    @Override
+    public int hashCode() {
+        return getShortCode().hashCode();
+    }
+
+    private static final class Location {
+        private final OffHeapLinkStorage.Arena arena;
+        private final ByteBuffer chunk;
+        private final int offset;
+
+        private Location(OffHeapLinkStorage.Arena arena, ByteBuffer chunk, int offset) {
+            this.arena = arena;
+            this.chunk = chunk;
+            this.offset = offset;
+        }
+    }
+}
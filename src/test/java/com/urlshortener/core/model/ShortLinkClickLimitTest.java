@@ -0,0 +1,110 @@
+package com.urlshortener.core.model;
+
+import com.urlshortener.core.storage.LinkStorage;
+import com.urlshortener.infra.inmemory.InMemoryLinkStorage;
+import com.urlshortener.infra.offheap.OffHeapLinkStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Лимит переходов под конкурентной нагрузкой: много потоков бьют в один горячий код
+class ShortLinkClickLimitTest {
+    private static final String CODE = "hot1";
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 20_000;
+    private static final int MAX_CLICKS = 50_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"heap", "offheap"})
+    void concurrentClicksNeverExceedLimit(String storageType) throws Exception {
+        LinkStorage storage = "offheap".equals(storageType)
+                ? new OffHeapLinkStorage(1 << 20)
+                : new InMemoryLinkStorage();
+        storage.put(newLink(MAX_CLICKS));
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger limitReached = new AtomicInteger();
+        AtomicInteger inactive = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        ShortLink link = storage.get(CODE);
+                        switch (link.tryReserveClick()) {
+                            case RESERVED:
+                                reserved.incrementAndGet();
+                                break;
+                            case LIMIT_REACHED:
+                                limitReached.incrementAndGet();
+                                break;
+                            default:
+                                inactive.incrementAndGet();
+                        }
+                        assertTrue(link.getCurrentClicks() <= MAX_CLICKS);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+
+            ShortLink link = storage.get(CODE);
+            assertEquals(MAX_CLICKS, reserved.get());
+            assertEquals(THREADS * ATTEMPTS_PER_THREAD - MAX_CLICKS, limitReached.get());
+            assertEquals(0, inactive.get());
+            assertEquals(MAX_CLICKS, link.getCurrentClicks());
+            assertFalse(link.isActive());
+        } finally {
+            executor.shutdownNow();
+            storage.close();
+        }
+    }
+
+    @Test
+    void limitReachedIsReportedAfterLastClick() {
+        ShortLink link = newLink(1);
+
+        assertEquals(ShortLink.ClickResult.RESERVED, link.tryReserveClick());
+        assertFalse(link.isActive());
+        assertTrue(link.isLimitReached());
+        assertEquals(ShortLink.ClickResult.LIMIT_REACHED, link.tryReserveClick());
+    }
+
+    @Test
+    void deactivatedLinkWithClicksLeftIsInactive() {
+        ShortLink link = newLink(5);
+        link.setActive(false);
+
+        assertFalse(link.isLimitReached());
+        assertEquals(ShortLink.ClickResult.INACTIVE, link.tryReserveClick());
+    }
+
+    private static ShortLink newLink(int maxClicks) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ShortLink(CODE, "https://example.com/hot", UUID.randomUUID(),
+                now, now.plusDays(1), maxClicks, 0, true);
+    }
+}
@@ -0,0 +1,77 @@
+package com.urlshortener.core.model;
+
+import com.urlshortener.core.persistence.LinkLineFormat;
+import com.urlshortener.core.shortcode.Base62;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Объем кучи на ссылку, как в бенчмарке LinkFootprint: 1 млн ссылок, разобранных из текстового
+// формата. До упаковки полей ссылка без строки URL занимала 261 байт, цель - вдвое меньше
+class ShortLinkFootprintTest {
+    private static final int LINKS = 1_000_000;
+    private static final long MAX_BYTES_WITHOUT_URL = 261 / 2;
+
+    @Test
+    void perLinkHeapStaysWithinTarget() {
+        UUID[] owners = new UUID[1000];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = new UUID(0x5EED, i);
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+
+        long before = usedHeap();
+        ShortLink[] links = new ShortLink[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            links[i] = LinkLineFormat.parse(LinkLineFormat.format(syntheticLink(i, owners, expiresAt)));
+        }
+        long after = usedHeap();
+
+        long urlBytes = 0;
+        for (ShortLink link : links) {
+            urlBytes += 24 + 16 + ((link.getOriginalUrl().length() + 7) & ~7);
+        }
+        long bytesWithoutUrl = (after - before - urlBytes) / LINKS;
+
+        assertTrue(bytesWithoutUrl <= MAX_BYTES_WITHOUT_URL,
+                "Байт на ссылку без строки URL: " + bytesWithoutUrl + ", допустимо " + MAX_BYTES_WITHOUT_URL);
+        Reference.reachabilityFence(links);
+    }
+
+    @Test
+    void packedCodeIsDecodedOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        ShortLink link = new ShortLink("aB3dE9xZ", "https://example.com", UUID.randomUUID(),
+                now, now.plusDays(1), 10, 0, true);
+
+        String code = link.getShortCode();
+        assertEquals("aB3dE9xZ", code);
+        assertSame(code, link.getShortCode());
+    }
+
+    private static ShortLink syntheticLink(int index, UUID[] owners, LocalDateTime expiresAt) {
+        return new ShortLink(
+                Base62.encode(index * 7919L + 12345, 8),
+                "https://example.com/articles/" + index + "?ref=bench",
+                owners[index % owners.length],
+                expiresAt.minusHours(24),
+                expiresAt,
+                Integer.MAX_VALUE,
+                0,
+                true);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,74 @@
+package com.urlshortener.core.service;
+
+import com.urlshortener.core.model.ShortLink;
+import com.urlshortener.infra.inmemory.InMemoryLinkStorage;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Следующая версия снимка собирается по измененным кодам и не трогает предыдущую
+class LinkSnapshotTest {
+
+    @Test
+    void nextVersionAppliesChangesWithoutTouchingPrevious() {
+        InMemoryLinkStorage storage = new InMemoryLinkStorage();
+        for (int i = 0; i < 5_000; i++) {
+            storage.put(newLink("c" + i));
+        }
+        LinkSnapshot first = LinkSnapshot.of(0, storage);
+
+        storage.remove("c1");
+        storage.remove("c2");
+        storage.put(newLink("added"));
+        LinkSnapshot second = first.withChanges(1, List.of("c1", "c2", "added", "missing"), storage);
+
+        assertEquals(5_000, first.size());
+        assertTrue(first.contains("c1"));
+        assertNull(first.get("added"));
+
+        assertEquals(1, second.getVersion());
+        assertEquals(4_999, second.size());
+        assertFalse(second.contains("c1"));
+        assertFalse(second.contains("missing"));
+        assertEquals("added", second.get("added").getShortCode());
+        assertEquals(second.size(), codesOf(second).size());
+        assertEquals(second.size(), second.stream(true).count());
+        assertEquals(storage.size(), second.size());
+    }
+
+    @Test
+    void iteratorVisitsEveryLinkOnce() {
+        InMemoryLinkStorage storage = new InMemoryLinkStorage();
+        for (int i = 0; i < 3_000; i++) {
+            storage.put(newLink("c" + i));
+        }
+        LinkSnapshot snapshot = LinkSnapshot.of(0, storage);
+
+        Set<String> seen = new HashSet<>();
+        for (ShortLink link : snapshot) {
+            assertTrue(seen.add(link.getShortCode()));
+        }
+        assertEquals(3_000, seen.size());
+        assertEquals(seen, codesOf(snapshot));
+    }
+
+    private static Set<String> codesOf(LinkSnapshot snapshot) {
+        return snapshot.stream(false).map(ShortLink::getShortCode).collect(Collectors.toSet());
+    }
+
+    private static ShortLink newLink(String code) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ShortLink(code, "https://example.com/" + code, UUID.randomUUID(),
+                now, now.plusDays(1), 10, 0, true);
+    }
+}
@@ -0,0 +1,95 @@
+package com.urlshortener.infra.offheap;
+
+import com.urlshortener.core.model.ShortLink;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Обход хранилища вне кучи, пока вставки перестраивают таблицу, а удаления сжимают арену
+class OffHeapLinkStorageTest {
+    private static final int INITIAL = 50_000;
+    private static final int ADDED = 200_000;
+
+    @Test
+    void iterationSurvivesResizeAndCompaction() {
+        OffHeapLinkStorage storage = new OffHeapLinkStorage(1 << 20);
+        try {
+            for (int i = 0; i < INITIAL; i++) {
+                storage.put(newLink("k" + i));
+            }
+
+            Set<String> seen = new HashSet<>();
+            Iterator<ShortLink> links = storage.iterator();
+            for (int i = 0; i < INITIAL / 5; i++) {
+                assertTrue(seen.add(checked(links.next())));
+            }
+
+            for (int i = 0; i < ADDED; i++) {
+                storage.put(newLink("n" + i));
+            }
+            for (int i = 0; i < ADDED; i++) {
+                storage.remove("n" + i);
+            }
+            Set<String> removed = new HashSet<>();
+            for (int i = 0; i < INITIAL; i += 2) {
+                storage.remove("k" + i);
+                removed.add("k" + i);
+            }
+            assertTrue(storage.getCompactions() > 0);
+
+            while (links.hasNext()) {
+                String code = checked(links.next());
+                assertTrue(seen.add(code), "Повтор " + code);
+                assertFalse(code.startsWith("n"), "Удаленная до обхода ссылка " + code);
+            }
+
+            for (int i = 0; i < INITIAL; i++) {
+                String code = "k" + i;
+                assertTrue(seen.contains(code) || removed.contains(code), "Пропущена " + code);
+            }
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    void iteratorYieldsEachLinkOnce() {
+        OffHeapLinkStorage storage = new OffHeapLinkStorage(1 << 20);
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                storage.put(newLink("c" + i));
+            }
+
+            Set<String> seen = new HashSet<>();
+            for (ShortLink link : storage) {
+                assertTrue(seen.add(checked(link)));
+            }
+            assertEquals(10_000, seen.size());
+        } finally {
+            storage.close();
+        }
+    }
+
+    // Запись должна принадлежать своему коду, а не оказаться чужой после переноса
+    private static String checked(ShortLink link) {
+        assertEquals(urlOf(link.getShortCode()), link.getOriginalUrl());
+        return link.getShortCode();
+    }
+
+    private static ShortLink newLink(String code) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ShortLink(code, urlOf(code), UUID.randomUUID(), now, now.plusDays(1), 10, 0, true);
+    }
+
+    private static String urlOf(String code) {
+        return "https://example.com/articles/" + code + "?ref=test";
+    }
+}